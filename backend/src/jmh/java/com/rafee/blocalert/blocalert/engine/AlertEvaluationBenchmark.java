@@ -0,0 +1,154 @@
+package com.rafee.blocalert.blocalert.engine;
+
+import com.rafee.blocalert.blocalert.DTO.internal.CryptoMarketLite;
+import com.rafee.blocalert.blocalert.DTO.internal.IndexedAlert;
+import com.rafee.blocalert.blocalert.DTO.internal.UserAlertNotification;
+import com.rafee.blocalert.blocalert.entity.enums.AlertCondition;
+import com.rafee.blocalert.blocalert.utils.CachedAlertCodec;
+import com.rafee.blocalert.blocalert.utils.ScaledPrice;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Alert evaluation over synthetic in-memory alerts, no Redis or Spring context.
+ * <ul>
+ *     <li>{@code evaluateTick} matches every coin against the move since the previous tick and builds the
+ *     notifications, the work of {@code AlertServiceImpl.evaluateAlerts} once the index is loaded</li>
+ *     <li>{@code reloadCoin} decodes the cached values of one coin and rebuilds its index, the work of a
+ *     tick after the coin's alerts changed</li>
+ * </ul>
+ * Alerts are spread over the coins with a skew towards the top ranks. ABOVE thresholds sit above the
+ * reference price and BELOW thresholds below it, as they do in a live cache where triggered alerts are
+ * removed, and each tick moves the price up to 1% around the reference.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(value = 1, jvmArgsAppend = {"-Xms8g", "-Xmx8g"})
+public class AlertEvaluationBenchmark {
+
+    private static final int TICKS = 64;
+    private static final int[] SCALES = {0, 2, 4, 8};
+
+    @Param({"10000", "100000", "1000000", "10000000"})
+    private int alertCount;
+
+    @Param({"250"})
+    private int coinCount;
+
+    private CryptoMarketLite[][] ticks;
+    private CoinAlertIndex[] indexes;
+    private List<List<byte[]>> encodedByCoin;
+
+    private int tick;
+    private int reloadedCoin;
+
+    @Setup(Level.Trial)
+    public void setup() {
+
+        SplittableRandom random = new SplittableRandom(42);
+
+        long[] referencePrices = new long[coinCount];
+        for (int coin = 0; coin < coinCount; coin++) {
+            // log-uniform between 0.0001 and 100000
+            referencePrices[coin] = ScaledPrice.toScaled(BigDecimal.valueOf(Math.pow(10, random.nextDouble(-4, 5))));
+        }
+
+        List<List<IndexedAlert>> alertsByCoin = new ArrayList<>(coinCount);
+        encodedByCoin = new ArrayList<>(coinCount);
+        for (int coin = 0; coin < coinCount; coin++) {
+            alertsByCoin.add(new ArrayList<>());
+            encodedByCoin.add(new ArrayList<>());
+        }
+
+        for (long alertId = 1; alertId <= alertCount; alertId++) {
+
+            // squared uniform, the top coins get most alerts
+            int coin = (int) (Math.pow(random.nextDouble(), 2) * coinCount);
+            IndexedAlert alert = randomAlert(random, alertId, referencePrices[coin]);
+
+            alertsByCoin.get(coin).add(alert);
+            encodedByCoin.get(coin).add(CachedAlertCodec.encode(alert));
+        }
+
+        indexes = new CoinAlertIndex[coinCount];
+        for (int coin = 0; coin < coinCount; coin++) {
+            indexes[coin] = new CoinAlertIndex(1L, alertsByCoin.get(coin), null);
+        }
+
+        ticks = new CryptoMarketLite[TICKS][coinCount];
+        for (int t = 0; t < TICKS; t++) {
+            for (int coin = 0; coin < coinCount; coin++) {
+                long price = (long) (referencePrices[coin] * random.nextDouble(0.99, 1.01));
+                ticks[t][coin] = new CryptoMarketLite("coin-" + coin, "c" + coin, "Coin " + coin, "",
+                        BigDecimal.valueOf(price, ScaledPrice.SCALE), 0L, coin + 1, 0L, 0.0, 0.0, 0.0);
+            }
+        }
+    }
+
+    @Benchmark
+    public void evaluateTick(Blackhole blackhole) {
+
+        CryptoMarketLite[] previous = ticks[tick];
+        tick = (tick + 1) % TICKS;
+        CryptoMarketLite[] current = ticks[tick];
+
+        List<UserAlertNotification> notifications = new ArrayList<>();
+
+        for (int coin = 0; coin < coinCount; coin++) {
+
+            CryptoMarketLite crypto = current[coin];
+            PriceInterval interval = PriceInterval.of(ScaledPrice.toScaled(crypto.current_price()))
+                    .widen(ScaledPrice.toScaled(previous[coin].current_price()));
+
+            for (IndexedAlert alert : indexes[coin].match(interval)) {
+                notifications.add(UserAlertNotification.fromAlert(alert, crypto));
+            }
+        }
+
+        blackhole.consume(notifications);
+    }
+
+    @Benchmark
+    public void reloadCoin(Blackhole blackhole) {
+
+        int coin = reloadedCoin;
+        reloadedCoin = (reloadedCoin + 1) % coinCount;
+
+        List<byte[]> encoded = encodedByCoin.get(coin);
+        List<IndexedAlert> alerts = new ArrayList<>(encoded.size());
+        encoded.forEach(value -> alerts.add(CachedAlertCodec.decode(value)));
+
+        blackhole.consume(new CoinAlertIndex(2L, alerts, indexes[coin]));
+    }
+
+    private static IndexedAlert randomAlert(SplittableRandom random, long alertId, long referencePrice) {
+
+        int conditionRoll = random.nextInt(100);
+        AlertCondition condition = conditionRoll < 45 ? AlertCondition.PRICE_ABOVE
+                : conditionRoll < 90 ? AlertCondition.PRICE_BELOW
+                : AlertCondition.PRICE_EQUALS;
+
+        double factor = switch (condition) {
+            case PRICE_ABOVE -> random.nextDouble(1.0, 1.3);
+            case PRICE_BELOW -> random.nextDouble(0.7, 1.0);
+            case PRICE_EQUALS -> random.nextDouble(0.98, 1.02);
+        };
+
+        int scale = SCALES[random.nextInt(SCALES.length)];
+        long unit = ScaledPrice.unit(scale);
+        long threshold = Math.max(unit, (long) (referencePrice * factor) / unit * unit);
+
+        return new IndexedAlert(alertId, random.nextLong(1, 1_000_000), threshold, scale, condition,
+                random.nextBoolean(), random.nextBoolean(), random.nextBoolean(), 0L);
+    }
+
+}
@@ -1,4 +1,6 @@
 package com.rafee.blocalert.blocalert.DTO;
 
-public record PageDTO(int page, int size) {
+import com.rafee.blocalert.blocalert.market.CryptoSort;
+
+public record PageDTO(int page, int size, CryptoSort sort) {
 }
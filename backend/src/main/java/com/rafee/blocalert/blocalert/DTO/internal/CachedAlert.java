@@ -8,6 +8,7 @@ import lombok.Data;
 import lombok.NoArgsConstructor;
 
 import java.math.BigDecimal;
+import java.time.LocalDateTime;
 
 @Data
 @AllArgsConstructor
@@ -22,6 +23,7 @@ public class CachedAlert {
     private boolean notificationWebsocket;
     private boolean notificationEmail;
     private boolean notificationSms;
+    private LocalDateTime activeSince;
 
     public static CachedAlert from(Alert alert, Long userId) {
         return new CachedAlert(
@@ -32,7 +34,9 @@ public class CachedAlert {
                 alert.getCondition(),
                 alert.getNotificationWebsocket(),
                 alert.getNotificationEmail(),
-                alert.getNotificationSms()
+                alert.getNotificationSms(),
+                // cached right after the save, this threshold applies from now on
+                LocalDateTime.now()
         );
     }
 
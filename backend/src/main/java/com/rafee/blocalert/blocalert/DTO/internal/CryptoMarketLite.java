@@ -11,7 +11,9 @@ public record CryptoMarketLite(
         Long market_cap,
         int market_cap_rank,
         long circulating_supply,
-        double price_change_percentage_24h
+        double price_change_percentage_24h,
+        double high_24h,
+        double low_24h
 
 ) {
 }
@@ -0,0 +1,40 @@
+package com.rafee.blocalert.blocalert.DTO.internal;
+
+import com.rafee.blocalert.blocalert.entity.enums.AlertCondition;
+import com.rafee.blocalert.blocalert.utils.ScaledPrice;
+
+import java.time.ZoneId;
+
+/**
+ * Alert as matched by the engine. {@code activeSince} is the epoch millis from which the current threshold
+ * applies, 0 when unknown.
+ */
+public record IndexedAlert(
+        long alertId,
+        long userId,
+        long threshold,
+        int thresholdScale,
+        AlertCondition alertCondition,
+        boolean notificationWebsocket,
+        boolean notificationEmail,
+        boolean notificationSms,
+        long activeSince
+) {
+
+    public static IndexedAlert from(CachedAlert alert) {
+        return new IndexedAlert(
+                alert.getAlertId(),
+                alert.getUserId(),
+                ScaledPrice.toScaled(alert.getThresholdValue()),
+                ScaledPrice.thresholdScale(alert.getThresholdValue()),
+                alert.getAlertCondition(),
+                alert.isNotificationWebsocket(),
+                alert.isNotificationEmail(),
+                alert.isNotificationSms(),
+                alert.getActiveSince() != null
+                        ? alert.getActiveSince().atZone(ZoneId.systemDefault()).toInstant().toEpochMilli()
+                        : 0L
+        );
+    }
+
+}
@@ -0,0 +1,64 @@
+package com.rafee.blocalert.blocalert.DTO.internal;
+
+import java.util.*;
+
+/**
+ * One market tick as produced by the streaming parser: the lite list for evaluation, the full records
+ * for the detail broadcast, the JSON of both as copied from the response for Redis, and the 24h volume
+ * of each coin for the price history.
+ */
+public record MarketSnapshot(
+        List<CryptoMarketLite> liteList,
+        Map<String, CryptoMarketData> fullById,
+        Map<String, String> fullJsonById,
+        List<String> liteJson,
+        Map<String, Double> volumeById
+) {
+
+    public String liteListJson() {
+        return "[" + String.join(",", liteJson) + "]";
+    }
+
+    public boolean isEmpty() {
+        return liteList.isEmpty();
+    }
+
+    public static MarketSnapshot empty() {
+        return new MarketSnapshot(List.of(), Map.of(), Map.of(), List.of(), Map.of());
+    }
+
+    public MarketSnapshot without(Set<String> ids) {
+        return merge(List.of(this), ids);
+    }
+
+    /**
+     * Concatenates the snapshots in order. A coin that moved between pages while they were fetched is kept
+     * from the first snapshot it appears in, coins in {@code excluded} are dropped.
+     */
+    public static MarketSnapshot merge(List<MarketSnapshot> snapshots, Set<String> excluded) {
+
+        List<CryptoMarketLite> liteList = new ArrayList<>();
+        Map<String, CryptoMarketData> fullById = new LinkedHashMap<>();
+        Map<String, String> fullJsonById = new LinkedHashMap<>();
+        List<String> liteJson = new ArrayList<>();
+        Map<String, Double> volumeById = new HashMap<>();
+
+        for (MarketSnapshot snapshot : snapshots) {
+            for (int i = 0; i < snapshot.liteList().size(); i++) {
+
+                String id = snapshot.liteList().get(i).id();
+                if (excluded.contains(id) || fullById.containsKey(id)) continue;
+
+                liteList.add(snapshot.liteList().get(i));
+                fullById.put(id, snapshot.fullById().get(id));
+                fullJsonById.put(id, snapshot.fullJsonById().get(id));
+                liteJson.add(snapshot.liteJson().get(i));
+                Double volume = snapshot.volumeById().get(id);
+                if (volume != null) volumeById.put(id, volume);
+            }
+        }
+
+        return new MarketSnapshot(liteList, fullById, fullJsonById, liteJson, volumeById);
+    }
+
+}
@@ -1,6 +1,7 @@
 package com.rafee.blocalert.blocalert.DTO.internal;
 
 import com.rafee.blocalert.blocalert.entity.enums.AlertCondition;
+import com.rafee.blocalert.blocalert.utils.ScaledPrice;
 import lombok.AllArgsConstructor;
 import lombok.Data;
 import lombok.NoArgsConstructor;
@@ -25,20 +26,20 @@ public class UserAlertNotification {
     private boolean isEmailSubscribed;
 
 
-    public static UserAlertNotification fromAlert(CachedAlert alert, CryptoMarketLite cryptoMarketLite) {
+    public static UserAlertNotification fromAlert(IndexedAlert alert, CryptoMarketLite cryptoMarketLite) {
 
         return new UserAlertNotification(
-                alert.getAlertId(),
-                alert.getUserId(),
+                alert.alertId(),
+                alert.userId(),
                 cryptoMarketLite.id(),
                 cryptoMarketLite.name(),
                 cryptoMarketLite.image(),
-                alert.getThresholdValue(),
-                alert.getAlertCondition(),
+                ScaledPrice.toBigDecimal(alert.threshold(), alert.thresholdScale()),
+                alert.alertCondition(),
                 cryptoMarketLite.current_price(),
-                alert.isNotificationWebsocket(),
-                alert.isNotificationSms(),
-                alert.isNotificationEmail()
+                alert.notificationWebsocket(),
+                alert.notificationSms(),
+                alert.notificationEmail()
         );
     }
 
@@ -0,0 +1,136 @@
+package com.rafee.blocalert.blocalert.client;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.rafee.blocalert.blocalert.config.CoingeckoConfig;
+import com.rafee.blocalert.blocalert.exception.ExternalApiException;
+import com.rafee.blocalert.blocalert.service.CoingeckoService;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.*;
+
+/**
+ * Chart data per (cryptoId, days), kept for a TTL that grows with the timeframe.
+ * <ul>
+ *     <li>fresh entries are served as they are</li>
+ *     <li>stale entries are served while one background refresh runs, and stay served if it fails</li>
+ *     <li>concurrent misses of a key wait on the same upstream call, for at most the chart wait</li>
+ * </ul>
+ * Upstream calls run on virtual threads, so retries and backoff never hold a request thread longer than the wait.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class ChartDataCache {
+
+    private final CoingeckoService coingeckoService;
+    private final CoingeckoConfig coingeckoConfig;
+    private final MeterRegistry meterRegistry;
+
+    private final Map<String, CompletableFuture<Map<String, Object>>> inFlight = new ConcurrentHashMap<>();
+    private final ExecutorService refreshExecutor = Executors.newVirtualThreadPerTaskExecutor();
+
+    private Cache<String, ChartEntry> entries;
+
+    private record ChartEntry(Map<String, Object> data, long fetchedAt) {
+    }
+
+    @PostConstruct
+    void init() {
+
+        entries = CacheBuilder.newBuilder()
+                .maximumSize(coingeckoConfig.getChartCacheSize())
+                .expireAfterWrite(Duration.ofMillis(coingeckoConfig.getChartStaleMaxMs()))
+                .build();
+
+        Gauge.builder("chart.cache.size", entries, Cache::size)
+                .description("Chart entries kept in memory")
+                .register(meterRegistry);
+    }
+
+    @PreDestroy
+    void shutdown() {
+        refreshExecutor.shutdownNow();
+    }
+
+    public Map<String, Object> get(String cryptoId, String days) {
+
+        String key = cryptoId + ":" + days;
+        ChartEntry entry = entries.getIfPresent(key);
+
+        if (entry != null) {
+
+            if (System.currentTimeMillis() - entry.fetchedAt() < ttl(days).toMillis()) {
+                count("hit");
+            } else {
+                count("stale");
+                load(key, cryptoId, days);
+            }
+            return entry.data();
+        }
+
+        count("miss");
+
+        try {
+            return load(key, cryptoId, days).get(coingeckoConfig.getChartWaitMs(), TimeUnit.MILLISECONDS);
+        } catch (TimeoutException e) {
+            log.warn("Chart data for {} not fetched within {}ms", key, coingeckoConfig.getChartWaitMs());
+            throw new ExternalApiException("Chart data not available yet, try again");
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof ExternalApiException apiException) throw apiException;
+            throw new ExternalApiException("Unexpected error while fetching chart data");
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new ExternalApiException("Interrupted while fetching chart data");
+        }
+    }
+
+    private CompletableFuture<Map<String, Object>> load(String key, String cryptoId, String days) {
+
+        CompletableFuture<Map<String, Object>> created = new CompletableFuture<>();
+        CompletableFuture<Map<String, Object>> running = inFlight.putIfAbsent(key, created);
+
+        if (running != null) {
+            count("coalesced");
+            return running;
+        }
+
+        refreshExecutor.execute(() -> {
+            try {
+                Map<String, Object> data = coingeckoService.getCryptoChartData(cryptoId, days);
+                entries.put(key, new ChartEntry(data, System.currentTimeMillis()));
+                created.complete(data);
+            } catch (Exception e) {
+                log.warn("Chart refresh for {} failed: {}", key, e.getMessage());
+                created.completeExceptionally(e);
+            } finally {
+                inFlight.remove(key, created);
+            }
+        });
+
+        return created;
+    }
+
+    private static Duration ttl(String days) {
+
+        return switch (days) {
+            case "7" -> Duration.ofMinutes(5);
+            case "30" -> Duration.ofMinutes(15);
+            case "180", "365" -> Duration.ofHours(1);
+            default -> Duration.ofMinutes(1);
+        };
+    }
+
+    private void count(String result) {
+        meterRegistry.counter("chart.cache", "result", result).increment();
+    }
+
+}
@@ -0,0 +1,130 @@
+package com.rafee.blocalert.blocalert.client;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpRequest;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.HttpStatusCode;
+import org.springframework.http.client.ClientHttpRequestExecution;
+import org.springframework.http.client.ClientHttpRequestInterceptor;
+import org.springframework.http.client.ClientHttpResponse;
+import org.springframework.util.StreamUtils;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URI;
+import java.util.List;
+
+/**
+ * Revalidates GET requests with the ETag / Last-Modified of the previous response to the same URI.
+ * A 304 is answered from the kept body, so an unchanged response costs no payload transfer.
+ * <p>
+ * Only the polled market and global endpoints are kept, one off requests such as charts would just fill the cache.
+ */
+@Slf4j
+public class ConditionalRequestInterceptor implements ClientHttpRequestInterceptor {
+
+    private static final List<String> CACHED_PATHS = List.of("/coins/markets", "/global");
+
+    private final Cache<URI, StoredResponse> responses;
+    private final MeterRegistry meterRegistry;
+
+    public ConditionalRequestInterceptor(int maximumSize, MeterRegistry meterRegistry) {
+        this.responses = CacheBuilder.newBuilder().maximumSize(maximumSize).build();
+        this.meterRegistry = meterRegistry;
+    }
+
+    private record StoredResponse(String etag, String lastModified, HttpHeaders headers, byte[] body) {
+    }
+
+    @Override
+    public ClientHttpResponse intercept(HttpRequest request, byte[] body, ClientHttpRequestExecution execution) throws IOException {
+
+        if (request.getMethod() != HttpMethod.GET || !isCached(request.getURI())) {
+            return execution.execute(request, body);
+        }
+
+        URI uri = request.getURI();
+        StoredResponse stored = responses.getIfPresent(uri);
+
+        if (stored != null) {
+            if (stored.etag() != null) request.getHeaders().setIfNoneMatch(stored.etag());
+            if (stored.lastModified() != null) request.getHeaders().set(HttpHeaders.IF_MODIFIED_SINCE, stored.lastModified());
+        }
+
+        ClientHttpResponse response = execution.execute(request, body);
+
+        if (stored != null && response.getStatusCode().value() == HttpStatus.NOT_MODIFIED.value()) {
+            response.close();
+            meterRegistry.counter("coingecko.conditional", "result", "not_modified").increment();
+            return new StoredClientHttpResponse(stored.headers(), stored.body());
+        }
+
+        String etag = response.getHeaders().getETag();
+        String lastModified = response.getHeaders().getFirst(HttpHeaders.LAST_MODIFIED);
+
+        if (!response.getStatusCode().is2xxSuccessful() || (etag == null && lastModified == null)) {
+            return response;
+        }
+
+        byte[] responseBody;
+        try (response) {
+            responseBody = StreamUtils.copyToByteArray(response.getBody());
+        }
+
+        HttpHeaders headers = new HttpHeaders();
+        headers.putAll(response.getHeaders());
+
+        responses.put(uri, new StoredResponse(etag, lastModified, headers, responseBody));
+        meterRegistry.counter("coingecko.conditional", "result", "modified").increment();
+
+        return new StoredClientHttpResponse(headers, responseBody);
+    }
+
+    private static boolean isCached(URI uri) {
+
+        String path = uri.getPath();
+        return path != null && CACHED_PATHS.stream().anyMatch(path::endsWith);
+    }
+
+    private static class StoredClientHttpResponse implements ClientHttpResponse {
+
+        private final HttpHeaders headers;
+        private final byte[] body;
+
+        StoredClientHttpResponse(HttpHeaders headers, byte[] body) {
+            this.headers = headers;
+            this.body = body;
+        }
+
+        @Override
+        public HttpStatusCode getStatusCode() {
+            return HttpStatus.OK;
+        }
+
+        @Override
+        public String getStatusText() {
+            return HttpStatus.OK.getReasonPhrase();
+        }
+
+        @Override
+        public HttpHeaders getHeaders() {
+            return headers;
+        }
+
+        @Override
+        public InputStream getBody() {
+            return new ByteArrayInputStream(body);
+        }
+
+        @Override
+        public void close() {
+        }
+    }
+
+}
@@ -0,0 +1,110 @@
+package com.rafee.blocalert.blocalert.client;
+
+import com.rafee.blocalert.blocalert.DTO.internal.MarketSnapshot;
+import com.rafee.blocalert.blocalert.config.CoingeckoConfig;
+import com.rafee.blocalert.blocalert.exception.ExternalApiException;
+import com.rafee.blocalert.blocalert.service.CoingeckoService;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+
+import java.util.*;
+import java.util.concurrent.*;
+
+/**
+ * Fetches the configured number of {@code /coins/markets} pages concurrently, one virtual thread per page,
+ * and merges them into one snapshot. The requests share the CoinGecko budget of the client, and pages not
+ * done within the fetch timeout are cancelled so the tick ends inside the scheduling interval. A page that
+ * failed or timed out is replaced by its slice of the previous tick, so those coins keep their last price.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class MarketPageFetcher {
+
+    private final CoingeckoService coingeckoService;
+    private final CoingeckoConfig coingeckoConfig;
+    private final MeterRegistry meterRegistry;
+
+    private final Map<Integer, MarketSnapshot> lastPages = new ConcurrentHashMap<>();
+
+    public MarketSnapshot fetchAll() {
+
+        int pageCount = coingeckoConfig.getMarketPages();
+
+        List<Callable<MarketSnapshot>> tasks = new ArrayList<>(pageCount);
+        for (int page = 1; page <= pageCount; page++) {
+            int requestedPage = page;
+            tasks.add(() -> coingeckoService.fetchCryptoMarketData(requestedPage));
+        }
+
+        List<Future<MarketSnapshot>> futures;
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            futures = executor.invokeAll(tasks, coingeckoConfig.getMarketFetchTimeoutMs(), TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new ExternalApiException("Interrupted while fetching crypto market pages");
+        }
+
+        List<MarketSnapshot> pages = new ArrayList<>(pageCount);
+        Set<String> freshIds = new HashSet<>();
+        boolean[] fresh = new boolean[pageCount];
+
+        for (int i = 0; i < pageCount; i++) {
+
+            int page = i + 1;
+            MarketSnapshot snapshot = pageResult(page, futures.get(i));
+
+            if (snapshot != null) {
+                lastPages.put(page, snapshot);
+                freshIds.addAll(snapshot.fullById().keySet());
+                fresh[i] = true;
+                countPage("fresh");
+            } else {
+                snapshot = lastPages.getOrDefault(page, MarketSnapshot.empty());
+                countPage(snapshot.isEmpty() ? "missing" : "stale");
+            }
+            pages.add(snapshot);
+        }
+
+        lastPages.keySet().removeIf(page -> page > pageCount);
+
+        if (pageCount > 0 && !containsTrue(fresh)) {
+            throw new ExternalApiException("No crypto market page could be fetched");
+        }
+
+        // a coin that moved into a fresh page is taken from there, not from a stale slice
+        for (int i = 0; i < pageCount; i++) {
+            if (!fresh[i]) pages.set(i, pages.get(i).without(freshIds));
+        }
+
+        return MarketSnapshot.merge(pages, Set.of());
+    }
+
+    private MarketSnapshot pageResult(int page, Future<MarketSnapshot> future) {
+
+        try {
+            return future.get();
+        } catch (CancellationException e) {
+            log.warn("Crypto market page {} not fetched within {}ms, keeping previous data", page, coingeckoConfig.getMarketFetchTimeoutMs());
+        } catch (ExecutionException e) {
+            log.warn("Crypto market page {} failed, keeping previous data: {}", page, e.getCause().getMessage());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        return null;
+    }
+
+    private void countPage(String result) {
+        meterRegistry.counter("coingecko.markets.pages", "result", result).increment();
+    }
+
+    private static boolean containsTrue(boolean[] values) {
+        for (boolean value : values) {
+            if (value) return true;
+        }
+        return false;
+    }
+
+}
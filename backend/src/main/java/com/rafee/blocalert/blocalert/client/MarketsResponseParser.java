@@ -0,0 +1,175 @@
+package com.rafee.blocalert.blocalert.client;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.rafee.blocalert.blocalert.DTO.internal.CryptoMarketData;
+import com.rafee.blocalert.blocalert.DTO.internal.CryptoMarketLite;
+import com.rafee.blocalert.blocalert.DTO.internal.MarketSnapshot;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.StringWriter;
+import java.math.BigDecimal;
+import java.util.*;
+
+/**
+ * Token level parser of the {@code /coins/markets} array. Each field of a coin is read once: its value feeds
+ * the records, and its tokens are copied as they are into the coin JSON and, for lite fields, the lite JSON.
+ * Fields the records do not have are skipped, the 24h volume is read for the price history only.
+ * <p>
+ * The kept JSON has the fields of the records but not their serialized form: numbers keep the source text
+ * (exponents included) and nulls stay null where a record holds 0. It is only read back through
+ * {@code objectMapper.readValue} into the records, which gives the same records as this parser, clients
+ * never see it.
+ */
+public final class MarketsResponseParser {
+
+    private MarketsResponseParser() {}
+
+    private static final Set<String> FULL_FIELDS = Set.of(
+            "id", "symbol", "name", "image", "current_price", "market_cap", "market_cap_rank", "circulating_supply",
+            "price_change_percentage_24h", "fully_diluted_valuation", "total_supply", "high_24h", "low_24h",
+            "market_cap_change_percentage_24h", "max_supply", "ath", "atl", "atl_date", "ath_date"
+    );
+
+    private static final Set<String> LITE_FIELDS = Set.of(
+            "id", "symbol", "name", "image", "current_price", "market_cap", "market_cap_rank", "circulating_supply",
+            "price_change_percentage_24h", "high_24h", "low_24h"
+    );
+
+    private static final String VOLUME_FIELD = "total_volume";
+
+    public static MarketSnapshot parse(InputStream body, JsonFactory jsonFactory) throws IOException {
+
+        List<CryptoMarketLite> liteList = new ArrayList<>();
+        Map<String, CryptoMarketData> fullById = new LinkedHashMap<>();
+        Map<String, String> fullJsonById = new LinkedHashMap<>();
+        List<String> liteJson = new ArrayList<>();
+        Map<String, Double> volumeById = new HashMap<>();
+
+        try (JsonParser parser = jsonFactory.createParser(body)) {
+
+            if (parser.nextToken() != JsonToken.START_ARRAY) {
+                throw new IOException("Expected a JSON array of coins");
+            }
+
+            while (parser.nextToken() == JsonToken.START_OBJECT) {
+
+                CoinFields coin = new CoinFields();
+                StringWriter fullWriter = new StringWriter(1024);
+                StringWriter liteWriter = new StringWriter(512);
+
+                try (JsonGenerator full = jsonFactory.createGenerator(fullWriter);
+                     JsonGenerator lite = jsonFactory.createGenerator(liteWriter)) {
+
+                    full.writeStartObject();
+                    lite.writeStartObject();
+
+                    while (parser.nextToken() == JsonToken.FIELD_NAME) {
+
+                        String field = parser.currentName();
+                        parser.nextToken();
+
+                        if (VOLUME_FIELD.equals(field)) {
+                            coin.read(field, parser);
+                            continue;
+                        }
+
+                        if (!FULL_FIELDS.contains(field)) {
+                            parser.skipChildren();
+                            continue;
+                        }
+
+                        coin.read(field, parser);
+
+                        full.writeFieldName(field);
+                        copyValue(parser, full);
+
+                        if (LITE_FIELDS.contains(field)) {
+                            lite.writeFieldName(field);
+                            copyValue(parser, lite);
+                        }
+                    }
+
+                    full.writeEndObject();
+                    lite.writeEndObject();
+                }
+
+                if (coin.id == null) continue;
+
+                liteList.add(coin.toLite());
+                fullById.put(coin.id, coin.toFull());
+                fullJsonById.put(coin.id, fullWriter.toString());
+                liteJson.add(liteWriter.toString());
+                volumeById.put(coin.id, coin.totalVolume);
+            }
+        }
+
+        return new MarketSnapshot(liteList, fullById, fullJsonById, liteJson, volumeById);
+    }
+
+    /**
+     * Numbers are written from their source text, so prices keep every digit CoinGecko sent.
+     */
+    private static void copyValue(JsonParser parser, JsonGenerator generator) throws IOException {
+
+        if (parser.currentToken().isNumeric()) {
+            generator.writeNumber(parser.getText());
+        } else {
+            generator.copyCurrentEvent(parser);
+        }
+    }
+
+    private static final class CoinFields {
+
+        String id, symbol, name, image, atlDate, athDate;
+        BigDecimal currentPrice;
+        Long marketCap;
+        int marketCapRank;
+        long circulatingSupply, fullyDilutedValuation, totalSupply, maxSupply;
+        double priceChangePercentage24h, high24h, low24h, marketCapChangePercentage24h, ath, atl, totalVolume;
+
+        void read(String field, JsonParser parser) throws IOException {
+
+            boolean isNull = parser.currentToken() == JsonToken.VALUE_NULL;
+
+            switch (field) {
+                case "id" -> id = parser.getValueAsString();
+                case "symbol" -> symbol = parser.getValueAsString();
+                case "name" -> name = parser.getValueAsString();
+                case "image" -> image = parser.getValueAsString();
+                case "atl_date" -> atlDate = parser.getValueAsString();
+                case "ath_date" -> athDate = parser.getValueAsString();
+                case "current_price" -> currentPrice = isNull ? null : parser.getDecimalValue();
+                case "market_cap" -> marketCap = isNull ? null : parser.getValueAsLong();
+                case "market_cap_rank" -> marketCapRank = parser.getValueAsInt();
+                case "circulating_supply" -> circulatingSupply = parser.getValueAsLong();
+                case "fully_diluted_valuation" -> fullyDilutedValuation = parser.getValueAsLong();
+                case "total_supply" -> totalSupply = parser.getValueAsLong();
+                case "max_supply" -> maxSupply = parser.getValueAsLong();
+                case "price_change_percentage_24h" -> priceChangePercentage24h = parser.getValueAsDouble();
+                case "high_24h" -> high24h = parser.getValueAsDouble();
+                case "low_24h" -> low24h = parser.getValueAsDouble();
+                case "market_cap_change_percentage_24h" -> marketCapChangePercentage24h = parser.getValueAsDouble();
+                case "ath" -> ath = parser.getValueAsDouble();
+                case "atl" -> atl = parser.getValueAsDouble();
+                case "total_volume" -> totalVolume = parser.getValueAsDouble();
+                default -> { }
+            }
+        }
+
+        CryptoMarketLite toLite() {
+            return new CryptoMarketLite(id, symbol, name, image, currentPrice, marketCap, marketCapRank,
+                    circulatingSupply, priceChangePercentage24h, high24h, low24h);
+        }
+
+        CryptoMarketData toFull() {
+            return new CryptoMarketData(id, symbol, name, image, currentPrice, marketCap, marketCapRank,
+                    circulatingSupply, priceChangePercentage24h, fullyDilutedValuation, totalSupply, high24h, low24h,
+                    marketCapChangePercentage24h, maxSupply, ath, atl, atlDate, athDate);
+        }
+    }
+
+}
@@ -0,0 +1,177 @@
+package com.rafee.blocalert.blocalert.client;
+
+import com.google.common.util.concurrent.RateLimiter;
+import com.rafee.blocalert.blocalert.exception.RequestBudgetExceededException;
+import com.rafee.blocalert.blocalert.service.RedisService;
+import com.rafee.blocalert.blocalert.utils.RedisKeys;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.HttpRequest;
+import org.springframework.http.client.ClientHttpRequestExecution;
+import org.springframework.http.client.ClientHttpRequestInterceptor;
+import org.springframework.http.client.ClientHttpResponse;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.List;
+
+/**
+ * Request budget shared by every CoinGecko call of every node. Market pages, global stats and charts draw from
+ * the same per minute allowance, counted in a Redis counter per clock minute so all nodes spend one API key's
+ * quota. A call that finds the minute used up waits for the next one if that is within the wait, and fails
+ * otherwise instead of queueing. While Redis is unreachable each node falls back to its own rate limiter.
+ * Calls other than the market pages are counted per minute in Redis as well, so the tick interval can leave
+ * room for the chart and global calls of every node.
+ */
+@Slf4j
+public class RequestBudgetInterceptor implements ClientHttpRequestInterceptor {
+
+    private static final long WINDOW_MS = 60000;
+
+    // KEYS minute counter  ARGV limit, ttl ms
+    private static final String ACQUIRE_SCRIPT = """
+            local used = redis.call('INCR', KEYS[1])
+            if used == 1 then redis.call('PEXPIRE', KEYS[1], ARGV[2]) end
+            if used > tonumber(ARGV[1]) then
+                redis.call('DECR', KEYS[1])
+                return -1
+            end
+            return used
+            """;
+
+    // KEYS minute counter  ARGV ttl ms
+    private static final String COUNT_SCRIPT = """
+            local count = redis.call('INCR', KEYS[1])
+            if count == 1 then redis.call('PEXPIRE', KEYS[1], ARGV[1]) end
+            return count
+            """;
+
+    private final RedisService redisService;
+    private final RateLimiter fallbackLimiter;
+    private final Duration maxWait;
+    private final MeterRegistry meterRegistry;
+    private final int requestsPerMinute;
+    private final Deque<Long> otherRequests = new ArrayDeque<>();
+
+    public RequestBudgetInterceptor(int requestsPerMinute, Duration maxWait, RedisService redisService, MeterRegistry meterRegistry) {
+        this.requestsPerMinute = requestsPerMinute;
+        this.fallbackLimiter = RateLimiter.create(requestsPerMinute / 60.0);
+        this.maxWait = maxWait;
+        this.redisService = redisService;
+        this.meterRegistry = meterRegistry;
+    }
+
+    @Override
+    public ClientHttpResponse intercept(HttpRequest request, byte[] body, ClientHttpRequestExecution execution) throws IOException {
+
+        if (!acquire()) {
+            meterRegistry.counter("coingecko.budget", "result", "rejected").increment();
+            log.warn("Coingecko request budget exhausted, rejecting {}", request.getURI().getPath());
+            throw new RequestBudgetExceededException("Coingecko request budget exhausted");
+        }
+
+        meterRegistry.counter("coingecko.budget", "result", "acquired").increment();
+
+        if (!request.getURI().getPath().endsWith("/coins/markets")) {
+            recordOtherRequest();
+        }
+
+        return execution.execute(request, body);
+    }
+
+    private boolean acquire() {
+
+        long deadline = System.currentTimeMillis() + maxWait.toMillis();
+
+        while (true) {
+
+            long now = System.currentTimeMillis();
+            long minute = now / WINDOW_MS;
+
+            // kept for two windows so the previous minute can still be read
+            Long used = redisService.scriptExecuteForLong(ACQUIRE_SCRIPT, List.of(RedisKeys.coingeckoBudgetKey(minute)),
+                    List.of(String.valueOf(requestsPerMinute), String.valueOf(2 * WINDOW_MS)));
+
+            if (used == null) {
+                meterRegistry.counter("coingecko.budget", "result", "fallback").increment();
+                return fallbackLimiter.tryAcquire(Duration.ofMillis(Math.max(0, deadline - now)));
+            }
+
+            if (used != -1) return true;
+
+            long nextMinute = (minute + 1) * WINDOW_MS;
+            if (nextMinute > deadline) return false;
+
+            try {
+                Thread.sleep(nextMinute - now);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return false;
+            }
+        }
+    }
+
+    public int getRequestsPerMinute() {
+        return requestsPerMinute;
+    }
+
+    /**
+     * Chart, global and other non market page requests made by all nodes in the last minute, estimated from the
+     * current and the previous minute counters. Counts only this node's requests while Redis is unreachable.
+     */
+    public int otherRequestsLastMinute() {
+
+        long now = System.currentTimeMillis();
+        long minute = now / WINDOW_MS;
+
+        List<String> counts = redisService.valueMultiGet(List.of(
+                RedisKeys.coingeckoOtherRequestsKey(minute - 1), RedisKeys.coingeckoOtherRequestsKey(minute)));
+
+        if (counts.size() != 2) {
+            return localOtherRequestsLastMinute(now);
+        }
+
+        // the previous minute weighs by how much of it is still inside the last 60 seconds
+        double previousShare = 1 - (double) (now % WINDOW_MS) / WINDOW_MS;
+        return (int) Math.ceil(parseCount(counts.get(0)) * previousShare + parseCount(counts.get(1)));
+    }
+
+    private void recordOtherRequest() {
+
+        long now = System.currentTimeMillis();
+
+        redisService.scriptExecuteForLong(COUNT_SCRIPT, List.of(RedisKeys.coingeckoOtherRequestsKey(now / WINDOW_MS)),
+                List.of(String.valueOf(2 * WINDOW_MS)));
+
+        synchronized (otherRequests) {
+            otherRequests.addLast(now);
+            pruneOlderThanAMinute(now);
+        }
+    }
+
+    private int localOtherRequestsLastMinute(long now) {
+
+        synchronized (otherRequests) {
+            pruneOlderThanAMinute(now);
+            return otherRequests.size();
+        }
+    }
+
+    private void pruneOlderThanAMinute(long now) {
+        while (!otherRequests.isEmpty() && otherRequests.peekFirst() < now - WINDOW_MS) {
+            otherRequests.removeFirst();
+        }
+    }
+
+    private static long parseCount(String count) {
+
+        try {
+            return count != null ? Long.parseLong(count) : 0L;
+        } catch (NumberFormatException e) {
+            return 0L;
+        }
+    }
+
+}
@@ -0,0 +1,27 @@
+package com.rafee.blocalert.blocalert.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+@Configuration
+@ConfigurationProperties(prefix = "alert-engine")
+@Data
+public class AlertEngineConfig {
+
+    private boolean crossingMode = false;
+    private boolean include24hRange = false;
+    private int parallelism = 0;
+    private int splitSize = 10000;
+    private boolean sharding = false;
+    private long nodeHeartbeatMs = 10000;
+    private long nodeTtlMs = 30000;
+    private Storage storage = Storage.HASH;
+    private int rebuildBatchSize = 5000;
+    private long rebuildCheckMs = 300000;
+
+    public enum Storage {
+        HASH,
+        SORTED_SET
+    }
+}
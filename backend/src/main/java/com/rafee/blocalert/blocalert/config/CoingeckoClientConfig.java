@@ -0,0 +1,61 @@
+package com.rafee.blocalert.blocalert.config;
+
+import com.rafee.blocalert.blocalert.client.CompressionInterceptor;
+import com.rafee.blocalert.blocalert.client.ConditionalRequestInterceptor;
+import com.rafee.blocalert.blocalert.client.RequestBudgetInterceptor;
+import com.rafee.blocalert.blocalert.service.RedisService;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.http.client.JdkClientHttpRequestFactory;
+import org.springframework.web.client.RestClient;
+
+import java.net.http.HttpClient;
+import java.time.Duration;
+
+@Configuration
+@Slf4j
+public class CoingeckoClientConfig {
+
+    @Bean
+    public RequestBudgetInterceptor coingeckoRequestBudget(CoingeckoConfig coingeckoConfig, RedisService redisService,
+                                                           MeterRegistry meterRegistry) {
+        return new RequestBudgetInterceptor(coingeckoConfig.getRequestsPerMinute(),
+                Duration.ofMillis(coingeckoConfig.getBudgetWaitMs()), redisService, meterRegistry);
+    }
+
+    /**
+     * Single client for all CoinGecko calls. The JDK client keeps connections alive in its own pool
+     * and negotiates HTTP/2 when the server supports it, so calls reuse the TLS session.
+     */
+    @Bean
+    public RestClient coingeckoRestClient(CoingeckoConfig coingeckoConfig, RequestBudgetInterceptor coingeckoRequestBudget,
+                                          MeterRegistry meterRegistry) {
+
+        HttpClient httpClient = HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_2)
+                .connectTimeout(Duration.ofMillis(coingeckoConfig.getConnectTimeoutMs()))
+                .followRedirects(HttpClient.Redirect.NORMAL)
+                .build();
+
+        JdkClientHttpRequestFactory requestFactory = new JdkClientHttpRequestFactory(httpClient);
+        requestFactory.setReadTimeout(Duration.ofMillis(coingeckoConfig.getReadTimeoutMs()));
+
+        log.info("Coingecko client initialized with connectTimeout={}ms, readTimeout={}ms",
+                coingeckoConfig.getConnectTimeoutMs(), coingeckoConfig.getReadTimeoutMs());
+
+        return RestClient.builder()
+                .baseUrl(coingeckoConfig.getUrl())
+                .requestFactory(requestFactory)
+                .defaultHeader("Accept", "application/json")
+                .defaultHeader("x-cg-demo-api-key", coingeckoConfig.getSecret())
+                // budget first, a revalidated request still counts against the allowance
+                .requestInterceptor(coingeckoRequestBudget)
+                // conditional before compression, so it stores and replays decompressed bodies
+                .requestInterceptor(new ConditionalRequestInterceptor(coingeckoConfig.getConditionalCacheSize(), meterRegistry))
+                .requestInterceptor(new CompressionInterceptor())
+                .build();
+    }
+
+}
@@ -0,0 +1,25 @@
+package com.rafee.blocalert.blocalert.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+@Configuration
+@ConfigurationProperties(prefix = "coingecko")
+@Data
+public class CoingeckoConfig {
+
+    private String url;
+    private String secret;
+    private long connectTimeoutMs = 5000;
+    private long readTimeoutMs = 15000;
+    private int conditionalCacheSize = 64;
+    private int marketPages = 4;
+    private int marketPageSize = 250;
+    private int requestsPerMinute = 30;
+    private long budgetWaitMs = 10000;
+    private long marketFetchTimeoutMs = 50000;
+    private int chartCacheSize = 2000;
+    private long chartStaleMaxMs = 21600000;
+    private long chartWaitMs = 10000;
+}
@@ -0,0 +1,25 @@
+package com.rafee.blocalert.blocalert.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+@Configuration
+@ConfigurationProperties(prefix = "scheduler")
+@Data
+public class SchedulerConfig {
+
+    private boolean leaderElection = true;
+    private long leaseMs = 30000;
+    private long leaseRenewMs = 10000;
+    private long checkMs = 5000;
+    private long cryptoIntervalMs = 65000;
+    private long marketStatsIntervalMs = 1800000;
+    private boolean adaptive = true;
+    private long minCryptoIntervalMs = 20000;
+    private long maxCryptoIntervalMs = 180000;
+    private double volatilityReferencePct = 0.3;
+    private double nearAlertPct = 0.5;
+    private int nearAlertReference = 50;
+    private double budgetHeadroom = 0.8;
+}
@@ -0,0 +1,17 @@
+package com.rafee.blocalert.blocalert.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+@Configuration
+@ConfigurationProperties(prefix = "timeseries")
+@Data
+public class TimeSeriesConfig {
+
+    private boolean enabled = true;
+    private String directory = "data/timeseries";
+    private int retentionDays = 35;
+    private int segmentBytes = 262144;
+    private int closedDayCacheSize = 5000;
+}
@@ -2,8 +2,14 @@ package com.rafee.blocalert.blocalert.controller;
 
 import com.rafee.blocalert.blocalert.DTO.internal.CryptoMarketLite;
 import com.rafee.blocalert.blocalert.DTO.response.ApiResponse;
+import com.rafee.blocalert.blocalert.DTO.response.CryptoResponse;
+import com.rafee.blocalert.blocalert.market.CryptoSort;
 import com.rafee.blocalert.blocalert.service.CryptoService;
+import jakarta.validation.constraints.Max;
+import jakarta.validation.constraints.Min;
 import jakarta.validation.constraints.NotBlank;
+import jakarta.validation.constraints.NotEmpty;
+import jakarta.validation.constraints.Size;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.http.ResponseEntity;
@@ -13,6 +19,7 @@ import org.springframework.web.bind.annotation.*;
 import java.math.BigDecimal;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 
 @RestController
 @RequestMapping("/api/v1/cryptos")
@@ -24,15 +31,33 @@ public class CryptoController {
     private final CryptoService cryptoService;
 
     @GetMapping("/search")
-    public ResponseEntity<ApiResponse> searchCrypto(@RequestParam @NotBlank(message = "Search term is required") String searchTerm){
+    public ResponseEntity<ApiResponse> searchCrypto(@RequestParam @NotBlank(message = "Search term is required") String searchTerm,
+                                                    @RequestParam(defaultValue = "20") @Min(1) @Max(100) int limit){
 
         log.info("searchCrypto called");
 
-        List<CryptoMarketLite> cryptoMarketLiteList = cryptoService.searchCrypto(searchTerm);
+        List<CryptoMarketLite> cryptoMarketLiteList = cryptoService.searchCrypto(searchTerm, limit);
 
         return ResponseEntity.ok().body(new ApiResponse("Search success", cryptoMarketLiteList));
     }
 
+    @GetMapping("/table")
+    public ResponseEntity<ApiResponse> getCryptoTable(@RequestParam(defaultValue = "1") @Min(1) int page,
+                                                      @RequestParam(defaultValue = "50") @Min(1) @Max(100) int size,
+                                                      @RequestParam(required = false) String sort){
+
+        log.info("getCryptoTable called");
+
+        CryptoSort cryptoSort = CryptoSort.parse(sort);
+        if (cryptoSort == null) {
+            return ResponseEntity.badRequest().body(new ApiResponse("Invalid sort", null));
+        }
+
+        CryptoResponse cryptoResponse = cryptoService.getCryptoTable(page, size, cryptoSort);
+
+        return ResponseEntity.ok().body(new ApiResponse("Crypto table fetched", cryptoResponse));
+    }
+
     @GetMapping("/{id}/chart")
     public ResponseEntity<ApiResponse> getChartData(@PathVariable String id,
                                                     @RequestParam @NotBlank(message = "Timeframe is required")  String timeframe){
@@ -54,4 +79,14 @@ public class CryptoController {
         return ResponseEntity.ok().body(new ApiResponse("Crypto price fetched", cryptoPrice));
     }
 
+    @GetMapping(value = "/price", params = "ids")
+    public ResponseEntity<ApiResponse> getCryptoPrices(@RequestParam @NotEmpty(message = "Crypto ids are required") @Size(max = 250, message = "At most 250 crypto ids") Set<String> ids){
+
+        log.info("getCryptoPrices called");
+
+        Map<String, BigDecimal> cryptoPrices = cryptoService.getCryptoPrices(ids);
+
+        return ResponseEntity.ok().body(new ApiResponse("Crypto prices fetched", cryptoPrices));
+    }
+
 }
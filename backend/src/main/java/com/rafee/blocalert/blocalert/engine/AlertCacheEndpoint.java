@@ -0,0 +1,42 @@
+package com.rafee.blocalert.blocalert.engine;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.boot.actuate.endpoint.annotation.WriteOperation;
+import org.springframework.stereotype.Component;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * {@code /actuator/alertcache}, GET shows the last rebuild and POST rebuilds the Redis alert cache from MySQL.
+ */
+@Component
+@Endpoint(id = "alertcache")
+@RequiredArgsConstructor
+public class AlertCacheEndpoint {
+
+    private final AlertCacheRebuilder alertCacheRebuilder;
+
+    @ReadOperation
+    public Map<String, Object> status() {
+
+        Map<String, Object> status = new HashMap<>();
+        status.put("running", alertCacheRebuilder.isRunning());
+        status.put("lastRebuild", alertCacheRebuilder.getLastRebuild());
+        return status;
+    }
+
+    @WriteOperation
+    public Map<String, Object> rebuild() {
+
+        AlertCacheRebuilder.RebuildStatus result = alertCacheRebuilder.rebuild("manual");
+
+        Map<String, Object> response = new HashMap<>();
+        response.put("started", result != null);
+        response.put("result", result);
+        return response;
+    }
+
+}
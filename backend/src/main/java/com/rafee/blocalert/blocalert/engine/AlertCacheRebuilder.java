@@ -0,0 +1,186 @@
+package com.rafee.blocalert.blocalert.engine;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.rafee.blocalert.blocalert.DTO.internal.CachedAlert;
+import com.rafee.blocalert.blocalert.DTO.internal.IndexedAlert;
+import com.rafee.blocalert.blocalert.config.AlertEngineConfig;
+import com.rafee.blocalert.blocalert.repository.AlertRepository;
+import com.rafee.blocalert.blocalert.service.RedisService;
+import com.rafee.blocalert.blocalert.utils.CachedAlertCodec;
+import com.rafee.blocalert.blocalert.utils.RedisKeys;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.Limit;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.*;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Repopulates the {@code alerts:coin:*} hashes from the active alerts in MySQL.
+ * <p>
+ * Alerts are read as {@link CachedAlert} projections in keyset batches ordered by id, so nothing is held in
+ * a persistence context and every batch is an index range scan. Each batch is written with one pipeline,
+ * then the touched coin versions are bumped so every node reloads them. The rebuild only adds alerts, it
+ * never removes fields, and only runs when the rebuild marker is gone (flushed Redis, failover to an empty
+ * replica). Comparing counts with MySQL is not a reliable staleness signal: triggered alerts leave the hash
+ * before MySQL marks them triggered, and re-adding them would fire them again.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class AlertCacheRebuilder {
+
+    private static final Duration LOCK_TTL = Duration.ofMinutes(10);
+
+    private final AlertRepository alertRepository;
+    private final RedisService redisService;
+    private final AlertEngineConfig alertEngineConfig;
+    private final MeterRegistry meterRegistry;
+
+    private final AtomicBoolean running = new AtomicBoolean();
+    private final AtomicLong rebuiltAlerts = new AtomicLong();
+
+    private volatile RebuildStatus lastRebuild;
+
+    public record RebuildStatus(long alerts, int cryptos, long durationMs, double alertsPerSecond, String reason) {
+    }
+
+    @PostConstruct
+    void registerMetrics() {
+
+        Gauge.builder("alert.cache.rebuild.progress", rebuiltAlerts, AtomicLong::get)
+                .description("Alerts written by the running or last cache rebuild")
+                .register(meterRegistry);
+
+        Gauge.builder("alert.cache.rebuild.running", running, flag -> flag.get() ? 1 : 0)
+                .description("1 while a cache rebuild is running")
+                .register(meterRegistry);
+
+        Gauge.builder("alert.cache.rebuild.throughput", this, rebuilder -> rebuilder.lastRebuild != null ? rebuilder.lastRebuild.alertsPerSecond() : 0)
+                .description("Alerts per second of the last cache rebuild")
+                .register(meterRegistry);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void onStartup() {
+        checkIndex();
+    }
+
+    @Scheduled(initialDelayString = "${alert-engine.rebuild-check-ms:300000}", fixedDelayString = "${alert-engine.rebuild-check-ms:300000}")
+    public void checkIndex() {
+
+        try {
+
+            if (redisService.valueGet(RedisKeys.ALERT_CACHE_REBUILT, new TypeReference<Long>() {}) == null) {
+                rebuild("empty");
+            }
+
+        } catch (Exception e) {
+            log.error("Error while checking the alert cache", e);
+        }
+    }
+
+    /**
+     * Rebuilds the cache unless a rebuild is already running on this or another node.
+     */
+    public RebuildStatus rebuild(String reason) {
+
+        if (!running.compareAndSet(false, true)) {
+            log.info("Alert cache rebuild already running on this node");
+            return null;
+        }
+
+        try {
+
+            if (!redisService.valueSetIfAbsent(RedisKeys.ALERT_CACHE_REBUILD_LOCK, reason, LOCK_TTL)) {
+                log.info("Alert cache rebuild already running on another node");
+                return null;
+            }
+
+            try {
+                lastRebuild = streamAlerts(reason);
+                return lastRebuild;
+            } finally {
+                redisService.delete(List.of(RedisKeys.ALERT_CACHE_REBUILD_LOCK));
+            }
+
+        } finally {
+            running.set(false);
+        }
+    }
+
+    public RebuildStatus getLastRebuild() {
+        return lastRebuild;
+    }
+
+    public boolean isRunning() {
+        return running.get();
+    }
+
+    private RebuildStatus streamAlerts(String reason) {
+
+        log.info("Alert cache rebuild started, reason {}", reason);
+
+        long start = System.nanoTime();
+        int batchSize = Math.max(1, alertEngineConfig.getRebuildBatchSize());
+        Set<String> cryptoIds = new HashSet<>();
+        long lastId = 0L;
+
+        rebuiltAlerts.set(0);
+
+        while (true) {
+
+            List<CachedAlert> batch = alertRepository.getActiveCachedAlertsAfter(lastId, Limit.of(batchSize));
+            if (batch.isEmpty()) break;
+
+            Map<String, Map<String, byte[]>> valuesByKey = new HashMap<>();
+
+            for (CachedAlert alert : batch) {
+                valuesByKey.computeIfAbsent(RedisKeys.alertKey(alert.getCryptoId()), k -> new HashMap<>())
+                        .put(RedisKeys.alertId(alert.getAlertId()), CachedAlertCodec.encode(IndexedAlert.from(alert)));
+                cryptoIds.add(alert.getCryptoId());
+            }
+
+            if (!redisService.hashPutAllBytes(valuesByKey)) {
+                throw new IllegalStateException("Alert cache rebuild failed after alert id " + lastId);
+            }
+
+            lastId = batch.get(batch.size() - 1).getAlertId();
+            rebuiltAlerts.addAndGet(batch.size());
+            meterRegistry.counter("alert.cache.rebuild.alerts").increment(batch.size());
+
+            if (batch.size() < batchSize) break;
+        }
+
+        // sorted set storage re-indexes the coins from the rebuilt hashes
+        redisService.delete(cryptoIds.stream().map(RedisKeys::alertIndexedKey).toList());
+        redisService.incrementAll(cryptoIds.stream().map(RedisKeys::alertVersionKey).toList());
+        redisService.valueSet(RedisKeys.ALERT_CACHE_REBUILT, System.currentTimeMillis());
+
+        long durationNanos = System.nanoTime() - start;
+        Timer.builder("alert.cache.rebuild.duration")
+                .description("Duration of alert cache rebuilds")
+                .tag("reason", reason)
+                .register(meterRegistry)
+                .record(durationNanos, TimeUnit.NANOSECONDS);
+
+        long alerts = rebuiltAlerts.get();
+        double seconds = Math.max(durationNanos / 1e9, 1e-9);
+        RebuildStatus status = new RebuildStatus(alerts, cryptoIds.size(), TimeUnit.NANOSECONDS.toMillis(durationNanos), alerts / seconds, reason);
+
+        log.info("Alert cache rebuild finished, {} alerts of {} cryptos in {} ms", alerts, cryptoIds.size(), status.durationMs());
+        return status;
+    }
+
+}
@@ -0,0 +1,196 @@
+package com.rafee.blocalert.blocalert.engine;
+
+import com.rafee.blocalert.blocalert.DTO.internal.CryptoMarketLite;
+import com.rafee.blocalert.blocalert.DTO.internal.IndexedAlert;
+import com.rafee.blocalert.blocalert.DTO.internal.UserAlertNotification;
+import com.rafee.blocalert.blocalert.config.AlertEngineConfig;
+import com.rafee.blocalert.blocalert.utils.ScaledPrice;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinWorkerThread;
+import java.util.concurrent.RecursiveTask;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Evaluates a tick on a dedicated ForkJoin pool. Coins are partitioned by crypto id, one partition per
+ * worker, and a coin matching more alerts than the split size builds its notifications in forked
+ * sub-ranges so a single large coin does not hold back the tick. Every task returns its own list and
+ * the lists are concatenated on join, nothing is shared between workers.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class AlertEvaluationExecutor {
+
+    private final AlertMatchingEngine alertMatchingEngine;
+    private final AlertEngineConfig alertEngineConfig;
+    private final MeterRegistry meterRegistry;
+
+    private ForkJoinPool pool;
+
+    @PostConstruct
+    void init() {
+
+        int parallelism = alertEngineConfig.getParallelism() > 0
+                ? alertEngineConfig.getParallelism()
+                : Runtime.getRuntime().availableProcessors();
+
+        pool = new ForkJoinPool(parallelism, forkJoinPool -> {
+            ForkJoinWorkerThread thread = ForkJoinPool.defaultForkJoinWorkerThreadFactory.newThread(forkJoinPool);
+            thread.setName("AlertEvaluation-" + thread.getPoolIndex());
+            return thread;
+        }, null, false);
+
+        log.info("Alert evaluation pool initialized with parallelism={}, splitSize={}", parallelism, alertEngineConfig.getSplitSize());
+    }
+
+    @PreDestroy
+    void shutdown() {
+        pool.shutdown();
+    }
+
+    public List<UserAlertNotification> evaluate(List<CryptoMarketLite> latestCrypto) {
+
+        int partitionCount = pool.getParallelism();
+
+        List<List<CryptoMarketLite>> partitions = new ArrayList<>(partitionCount);
+        for (int i = 0; i < partitionCount; i++) {
+            partitions.add(new ArrayList<>());
+        }
+
+        latestCrypto.forEach(crypto -> partitions.get(Math.floorMod(crypto.id().hashCode(), partitionCount)).add(crypto));
+
+        List<PartitionTask> tasks = new ArrayList<>(partitionCount);
+        for (int i = 0; i < partitionCount; i++) {
+            PartitionTask task = new PartitionTask(i, partitions.get(i));
+            pool.execute(task);
+            tasks.add(task);
+        }
+
+        List<UserAlertNotification> notifications = new ArrayList<>();
+        int skipped = 0;
+
+        for (PartitionTask task : tasks) {
+            PartitionResult result = task.join();
+            notifications.addAll(result.notifications());
+            skipped += result.skipped();
+        }
+
+        alertMatchingEngine.recordSkippedCoins(skipped, latestCrypto.size());
+        log.info("Evaluated {} cryptos in {} partitions, skipped {} unchanged", latestCrypto.size() - skipped, partitionCount, skipped);
+
+        return notifications;
+    }
+
+    private void countAlerts(String result, int count) {
+        if (count > 0) meterRegistry.counter("alert.evaluation.alerts", "result", result).increment(count);
+    }
+
+    private record PartitionResult(List<UserAlertNotification> notifications, int skipped) {
+    }
+
+    private class PartitionTask extends RecursiveTask<PartitionResult> {
+
+        private final int partition;
+        private final List<CryptoMarketLite> cryptos;
+
+        PartitionTask(int partition, List<CryptoMarketLite> cryptos) {
+            this.partition = partition;
+            this.cryptos = cryptos;
+        }
+
+        @Override
+        protected PartitionResult compute() {
+
+            long start = System.nanoTime();
+
+            List<UserAlertNotification> notifications = new ArrayList<>();
+            List<NotificationTask> forked = new ArrayList<>();
+            int skipped = 0;
+            int splitSize = Math.max(1, alertEngineConfig.getSplitSize());
+
+            List<CryptoMarketLite> evaluated = new ArrayList<>();
+            Map<String, PriceInterval> intervals = new HashMap<>();
+
+            for (CryptoMarketLite crypto : cryptos) {
+
+                if (crypto.current_price() == null) continue;
+
+                long price = ScaledPrice.toScaled(crypto.current_price());
+                PriceInterval interval = alertMatchingEngine.nextInterval(crypto.id(), price, crypto.low_24h(), crypto.high_24h());
+
+                // same prices and same alerts as already matched, nothing new can trigger
+                if (alertMatchingEngine.isUnchanged(crypto.id(), interval)) {
+                    countAlerts("skipped", alertMatchingEngine.indexedAlerts(crypto.id()));
+                    skipped++;
+                    continue;
+                }
+
+                countAlerts("scanned", alertMatchingEngine.indexedAlerts(crypto.id()));
+                evaluated.add(crypto);
+                intervals.put(crypto.id(), interval);
+            }
+
+            // matched for the whole partition at once, with sorted set storage this is one Redis round trip
+            Map<String, List<IndexedAlert>> matchedById = intervals.isEmpty() ? Map.of() : alertMatchingEngine.match(intervals);
+
+            for (CryptoMarketLite crypto : evaluated) {
+
+                List<IndexedAlert> matched = matchedById.getOrDefault(crypto.id(), List.of());
+                countAlerts("matched", matched.size());
+
+                if (matched.size() <= splitSize) {
+                    matched.forEach(alert -> notifications.add(UserAlertNotification.fromAlert(alert, crypto)));
+                    continue;
+                }
+
+                for (int from = 0; from < matched.size(); from += splitSize) {
+                    NotificationTask task = new NotificationTask(matched.subList(from, Math.min(from + splitSize, matched.size())), crypto);
+                    task.fork();
+                    forked.add(task);
+                }
+            }
+
+            forked.forEach(task -> notifications.addAll(task.join()));
+
+            Timer.builder("alert.evaluation.partition")
+                    .description("Time to evaluate one coin partition of a tick")
+                    .tag("partition", String.valueOf(partition))
+                    .register(meterRegistry)
+                    .record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+
+            return new PartitionResult(notifications, skipped);
+        }
+    }
+
+    private static class NotificationTask extends RecursiveTask<List<UserAlertNotification>> {
+
+        private final List<IndexedAlert> alerts;
+        private final CryptoMarketLite crypto;
+
+        NotificationTask(List<IndexedAlert> alerts, CryptoMarketLite crypto) {
+            this.alerts = alerts;
+            this.crypto = crypto;
+        }
+
+        @Override
+        protected List<UserAlertNotification> compute() {
+
+            List<UserAlertNotification> notifications = new ArrayList<>(alerts.size());
+            alerts.forEach(alert -> notifications.add(UserAlertNotification.fromAlert(alert, crypto)));
+            return notifications;
+        }
+    }
+
+}
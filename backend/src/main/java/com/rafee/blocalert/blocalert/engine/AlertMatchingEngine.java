@@ -0,0 +1,296 @@
+package com.rafee.blocalert.blocalert.engine;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.rafee.blocalert.blocalert.DTO.internal.CachedAlert;
+import com.rafee.blocalert.blocalert.config.AlertEngineConfig;
+import com.rafee.blocalert.blocalert.DTO.internal.IndexedAlert;
+import com.rafee.blocalert.blocalert.service.RedisService;
+import com.rafee.blocalert.blocalert.utils.CachedAlertCodec;
+import com.rafee.blocalert.blocalert.utils.RedisKeys;
+import com.rafee.blocalert.blocalert.utils.ScaledPrice;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Consumer;
+
+/**
+ * Keeps an in-memory {@link CoinAlertIndex} per coin in sync with the {@code alerts:coin:*} hashes.
+ * <p>
+ * Every write to a coin hash bumps {@code alerts:version:{coin}}. A tick only reloads the coins whose
+ * version moved since the last load, and writes made by this node are applied in place when no other
+ * node wrote in between, so the steady state costs a single MGET per tick.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class AlertMatchingEngine {
+
+    private static final long NOT_LOADED = -1L;
+
+    private final RedisService redisService;
+    private final ObjectMapper objectMapper;
+    private final MeterRegistry meterRegistry;
+    private final AlertEngineConfig alertEngineConfig;
+    private final SortedSetAlertStore sortedSetAlertStore;
+    private final Map<String, CoinAlertIndex> indexes = new ConcurrentHashMap<>();
+    private final Map<String, Long> lastPrices = new ConcurrentHashMap<>();
+
+    private volatile double skipRatio;
+
+    @PostConstruct
+    void registerMetrics() {
+        Gauge.builder("alert.evaluation.skip.ratio", this, engine -> engine.skipRatio)
+                .description("Share of coins skipped in the last tick because price and alerts were unchanged")
+                .register(meterRegistry);
+
+        Gauge.builder("alert.ownership.coins", indexes, Map::size)
+                .description("Coins whose alerts are indexed and evaluated by this node")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Drops the indexes of coins this node no longer evaluates, they are reloaded if the coin comes back.
+     */
+    public void retainOnly(Collection<String> cryptoIds) {
+
+        Set<String> retained = new HashSet<>(cryptoIds);
+
+        indexes.keySet().removeIf(cryptoId -> !retained.contains(cryptoId));
+        lastPrices.keySet().removeIf(cryptoId -> !retained.contains(cryptoId));
+    }
+
+    public void refresh(Collection<String> cryptoIds) {
+
+        if (isSortedSetStorage()) {
+            loadAlerts(sortedSetAlertStore.notIndexed(cryptoIds)).forEach(sortedSetAlertStore::index);
+            return;
+        }
+
+        List<String> ids = List.copyOf(cryptoIds);
+        List<String> remoteVersions = redisService.valueMultiGet(ids.stream().map(RedisKeys::alertVersionKey).toList());
+
+        if (remoteVersions.size() != ids.size()) {
+            log.warn("Alert index versions unavailable, evaluating with the current index");
+            return;
+        }
+
+        Map<String, Long> staleIds = new LinkedHashMap<>();
+
+        for (int i = 0; i < ids.size(); i++) {
+
+            String cryptoId = ids.get(i);
+            long remoteVersion = parseVersion(remoteVersions.get(i));
+            CoinAlertIndex index = indexes.get(cryptoId);
+            long localVersion = index != null ? index.getVersion() : NOT_LOADED;
+
+            if (localVersion != remoteVersion) {
+                staleIds.put(cryptoId, remoteVersion);
+            }
+        }
+
+        if (staleIds.isEmpty()) {
+            return;
+        }
+
+        loadAlerts(staleIds.keySet()).forEach((cryptoId, alerts) ->
+                indexes.put(cryptoId, new CoinAlertIndex(staleIds.get(cryptoId), alerts, indexes.get(cryptoId))));
+
+        log.info("Reloaded alert index for {} cryptos", staleIds.size());
+    }
+
+    /**
+     * Decoded alerts of the given coins, legacy JSON values are migrated to the binary format on the way.
+     * Coins whose hash could not be read are left out.
+     */
+    private Map<String, List<IndexedAlert>> loadAlerts(Collection<String> cryptoIds) {
+
+        Map<String, List<IndexedAlert>> alertsByCoin = new LinkedHashMap<>();
+        if (cryptoIds.isEmpty()) return alertsByCoin;
+
+        Set<String> keys = new LinkedHashSet<>();
+        cryptoIds.forEach(id -> keys.add(RedisKeys.alertKey(id)));
+
+        Map<String, Map<String, byte[]>> cachedAlerts = redisService.hashGetAllBytes(keys);
+
+        cryptoIds.forEach(cryptoId -> {
+
+            String key = RedisKeys.alertKey(cryptoId);
+            Map<String, byte[]> values = cachedAlerts.get(key);
+
+            if (values == null) {
+                log.warn("Alerts of {} could not be loaded, keeping the current index", cryptoId);
+                return;
+            }
+
+            Map<String, byte[]> legacyValues = new HashMap<>();
+            Map<String, byte[]> encodedValues = new HashMap<>();
+            List<IndexedAlert> alerts = new ArrayList<>();
+
+            values.forEach((field, value) -> {
+
+                IndexedAlert alert = decodeAlert(value);
+                if (alert == null) return;
+
+                alerts.add(alert);
+
+                if (!CachedAlertCodec.isEncoded(value)) {
+                    legacyValues.put(field, value);
+                    encodedValues.put(field, CachedAlertCodec.encode(alert));
+                }
+            });
+
+            alertsByCoin.put(cryptoId, alerts);
+
+            if (!legacyValues.isEmpty()) {
+                // only replaced while the JSON value is still there, so a concurrent delete is never undone
+                redisService.hashReplaceIfUnchanged(key, legacyValues, encodedValues);
+                log.info("Migrated {} legacy JSON alerts of {} to the binary format", legacyValues.size(), cryptoId);
+            }
+        });
+
+        return alertsByCoin;
+    }
+
+    /**
+     * Price interval to match a coin against. In crossing mode it spans from the previous tick price
+     * to the current one, optionally widened by the 24h range, so moves between two polls still trigger.
+     * Alerts younger than the 24h range only see the tick part of it.
+     */
+    public PriceInterval nextInterval(String cryptoId, long price, double low24h, double high24h) {
+
+        PriceInterval interval = PriceInterval.of(price);
+
+        if (!alertEngineConfig.isCrossingMode()) {
+            return interval;
+        }
+
+        Long previousPrice = lastPrices.put(cryptoId, price);
+        if (previousPrice != null) {
+            interval = interval.widen(previousPrice);
+        }
+
+        if (alertEngineConfig.isInclude24hRange()) {
+            interval = interval.widenBeyondTick(ScaledPrice.toScaled(BigDecimal.valueOf(low24h)))
+                    .widenBeyondTick(ScaledPrice.toScaled(BigDecimal.valueOf(high24h)));
+        }
+
+        return interval;
+    }
+
+    public boolean isUnchanged(String cryptoId, PriceInterval interval) {
+
+        CoinAlertIndex index = indexes.get(cryptoId);
+        return index != null && index.isEvaluated(interval.low(), interval.high());
+    }
+
+    public void recordSkippedCoins(int skipped, int total) {
+
+        meterRegistry.counter("alert.evaluation.coins", "result", "skipped").increment(skipped);
+        meterRegistry.counter("alert.evaluation.coins", "result", "evaluated").increment(total - skipped);
+        skipRatio = total > 0 ? (double) skipped / total : 0.0;
+    }
+
+    /**
+     * Alerts held in the in-memory index of a coin, 0 with sorted set storage.
+     */
+    public int indexedAlerts(String cryptoId) {
+
+        CoinAlertIndex index = indexes.get(cryptoId);
+        return index != null ? index.size() : 0;
+    }
+
+    /**
+     * Alerts of a coin that would fire within {@code percent} of the price, 0 with sorted set storage.
+     */
+    public int alertsNear(String cryptoId, long price, double percent) {
+
+        CoinAlertIndex index = indexes.get(cryptoId);
+        if (index == null) return 0;
+
+        long distance = (long) (price * percent / 100);
+        return index.countBetween(price - distance, ScaledPrice.add(price, distance));
+    }
+
+    /**
+     * Alerts triggered by the interval of each coin, coins without alerts may be left out.
+     */
+    public Map<String, List<IndexedAlert>> match(Map<String, PriceInterval> intervals) {
+
+        if (isSortedSetStorage()) {
+            return sortedSetAlertStore.claim(intervals);
+        }
+
+        Map<String, List<IndexedAlert>> matched = new HashMap<>();
+
+        intervals.forEach((cryptoId, interval) -> {
+            CoinAlertIndex index = indexes.get(cryptoId);
+            if (index != null) matched.put(cryptoId, index.match(interval));
+        });
+
+        return matched;
+    }
+
+    public void onAlertCached(String cryptoId, IndexedAlert alert) {
+
+        if (isSortedSetStorage()) {
+            sortedSetAlertStore.add(cryptoId, alert);
+        }
+
+        Long version = redisService.increment(RedisKeys.alertVersionKey(cryptoId));
+        applyLocally(cryptoId, version, index -> index.put(alert));
+    }
+
+    public void onAlertsRemoved(String cryptoId, Collection<Long> alertIds) {
+
+        if (isSortedSetStorage()) {
+            sortedSetAlertStore.remove(cryptoId, alertIds);
+        }
+
+        Long version = redisService.increment(RedisKeys.alertVersionKey(cryptoId));
+        applyLocally(cryptoId, version, index -> alertIds.forEach(index::remove));
+    }
+
+    private void applyLocally(String cryptoId, Long version, Consumer<CoinAlertIndex> change) {
+
+        CoinAlertIndex index = indexes.get(cryptoId);
+
+        if (version == null || index == null || !index.applyIfNext(version, () -> change.accept(index))) {
+            log.debug("Alert index for {} is behind version {}, reloading on next tick", cryptoId, version);
+        }
+    }
+
+    private boolean isSortedSetStorage() {
+        return alertEngineConfig.getStorage() == AlertEngineConfig.Storage.SORTED_SET;
+    }
+
+    private long parseVersion(String version) {
+
+        try {
+            return version != null ? Long.parseLong(version) : 0L;
+        } catch (NumberFormatException e) {
+            log.error("Invalid alert index version {}", version);
+            return 0L;
+        }
+    }
+
+    private IndexedAlert decodeAlert(byte[] value) {
+
+        try {
+            return CachedAlertCodec.isEncoded(value)
+                    ? CachedAlertCodec.decode(value)
+                    : IndexedAlert.from(objectMapper.readValue(value, CachedAlert.class));
+        } catch (Exception e) {
+            log.error("Error while parsing the cached alert {}", new String(value, StandardCharsets.UTF_8), e);
+            return null;
+        }
+    }
+
+}
@@ -0,0 +1,195 @@
+package com.rafee.blocalert.blocalert.engine;
+
+import com.rafee.blocalert.blocalert.DTO.internal.IndexedAlert;
+import com.rafee.blocalert.blocalert.entity.enums.AlertCondition;
+import com.rafee.blocalert.blocalert.utils.ScaledPrice;
+
+import java.time.Duration;
+import java.util.*;
+
+/**
+ * Threshold index of the cached alerts of a single coin, keyed by scaled prices.
+ * <p>
+ * Every condition is stored under the price bound at which it starts to fire, so a tick
+ * only walks the alerts that actually trigger instead of comparing every alert:
+ * <ul>
+ *     <li>PRICE_ABOVE fires when the price is at least threshold + 1 unit of the threshold scale</li>
+ *     <li>PRICE_BELOW fires when the price is strictly below the threshold</li>
+ *     <li>PRICE_EQUALS fires when the price lies in [threshold, threshold + 1 unit), grouped per scale</li>
+ * </ul>
+ * This is the same result as rounding both prices DOWN to the threshold scale and comparing them.
+ * Matching a price interval fires every alert that one of the prices in it would have fired.
+ */
+class CoinAlertIndex {
+
+    static final long RANGE_24H_MS = Duration.ofHours(24).toMillis();
+
+    private final Map<Long, IndexedAlert> alertsById = new HashMap<>();
+    private final ThresholdBook above = new ThresholdBook();
+    private final ThresholdBook below = new ThresholdBook();
+    private final Map<Integer, ThresholdBook> equalsByScale = new HashMap<>();
+    private final Set<Long> addedSinceMatch = new HashSet<>();
+
+    private long version;
+    private long evaluatedLow = Long.MAX_VALUE;
+    private long evaluatedHigh = Long.MIN_VALUE;
+    private long evaluatedVersion = -1L;
+
+    CoinAlertIndex(long version, Collection<IndexedAlert> alerts, CoinAlertIndex previous) {
+
+        this.version = version;
+
+        alerts.forEach(alert -> alertsById.put(alert.alertId(), alert));
+
+        if (previous != null) {
+            Set<Long> knownIds = previous.alertIds();
+            alertsById.keySet().stream().filter(id -> !knownIds.contains(id)).forEach(addedSinceMatch::add);
+        }
+
+        Map<ThresholdBook, List<IndexedAlert>> alertsByBook = new HashMap<>();
+        alertsById.values().forEach(alert -> alertsByBook.computeIfAbsent(bookOf(alert), b -> new ArrayList<>()).add(alert));
+        alertsByBook.forEach((book, bookAlerts) -> book.load(bookAlerts, CoinAlertIndex::keyOf));
+    }
+
+    synchronized long getVersion() {
+        return version;
+    }
+
+    synchronized int size() {
+        return alertsById.size();
+    }
+
+    synchronized Set<Long> alertIds() {
+        return new HashSet<>(alertsById.keySet());
+    }
+
+    synchronized void put(IndexedAlert alert) {
+
+        remove(alert.alertId());
+
+        alertsById.put(alert.alertId(), alert);
+        bookOf(alert).add(keyOf(alert), alert);
+        addedSinceMatch.add(alert.alertId());
+    }
+
+    synchronized void remove(long alertId) {
+
+        IndexedAlert existing = alertsById.remove(alertId);
+        if (existing == null) return;
+
+        addedSinceMatch.remove(alertId);
+
+        bookOf(existing).remove(keyOf(existing), alertId);
+    }
+
+    /**
+     * Applies a change made by this node when it is the next version of the index,
+     * otherwise the index stays behind and is reloaded from Redis on the next tick.
+     */
+    synchronized boolean applyIfNext(long newVersion, Runnable change) {
+
+        if (newVersion != version + 1) return false;
+
+        change.run();
+        version = newVersion;
+        return true;
+    }
+
+    /**
+     * True when the same alerts were already matched against a price interval covering this one.
+     */
+    synchronized boolean isEvaluated(long low, long high) {
+        return version == evaluatedVersion && low >= evaluatedLow && high <= evaluatedHigh;
+    }
+
+    /**
+     * Alerts that trigger at any price of the interval, a single price when the interval is empty.
+     * Alerts added since the last match only see the current price, and alerts younger than the 24h range
+     * only see the prices since the previous tick, a move that happened before they existed must not fire them.
+     */
+    synchronized List<IndexedAlert> match(PriceInterval interval) {
+
+        long low = interval.low();
+        long high = interval.high();
+
+        evaluatedLow = low;
+        evaluatedHigh = high;
+        evaluatedVersion = version;
+
+        List<IndexedAlert> matched = new ArrayList<>();
+
+        above.collect(0, above.upperBound(high), matched);
+        below.collect(below.upperBound(low), below.size(), matched);
+
+        equalsByScale.forEach((scale, book) ->
+                book.collect(book.lowerBound(low - ScaledPrice.unit(scale) + 1), book.upperBound(high), matched));
+
+        if (!addedSinceMatch.isEmpty()) {
+            matched.removeIf(alert -> addedSinceMatch.contains(alert.alertId()) && !triggersAt(alert, interval.price()));
+            addedSinceMatch.clear();
+            // the new alerts were only checked at the current price
+            evaluatedLow = interval.price();
+            evaluatedHigh = interval.price();
+        }
+
+        if (interval.reachesBeyondTick()) {
+
+            long youngSince = System.currentTimeMillis() - RANGE_24H_MS;
+
+            boolean restricted = matched.removeIf(alert -> alert.activeSince() > youngSince
+                    && !triggersWithin(alert, interval.tickLow(), interval.tickHigh()));
+
+            if (restricted) {
+                // checked against the tick only, once old enough they see the whole range again
+                evaluatedLow = Math.max(evaluatedLow, interval.tickLow());
+                evaluatedHigh = Math.min(evaluatedHigh, interval.tickHigh());
+            }
+        }
+
+        return matched;
+    }
+
+    /**
+     * Alerts that start to fire at a price in [low, high].
+     */
+    synchronized int countBetween(long low, long high) {
+
+        int count = above.count(low, high) + below.count(low, high);
+        for (ThresholdBook book : equalsByScale.values()) {
+            count += book.count(low, high);
+        }
+        return count;
+    }
+
+    private ThresholdBook bookOf(IndexedAlert alert) {
+
+        return switch (alert.alertCondition()) {
+            case PRICE_ABOVE -> above;
+            case PRICE_BELOW -> below;
+            case PRICE_EQUALS -> equalsByScale.computeIfAbsent(alert.thresholdScale(), s -> new ThresholdBook());
+        };
+    }
+
+    private static boolean triggersAt(IndexedAlert alert, long price) {
+        return triggersWithin(alert, price, price);
+    }
+
+    private static boolean triggersWithin(IndexedAlert alert, long low, long high) {
+
+        long key = keyOf(alert);
+
+        return switch (alert.alertCondition()) {
+            case PRICE_ABOVE -> high >= key;
+            case PRICE_BELOW -> low < key;
+            case PRICE_EQUALS -> high >= key && low < ScaledPrice.add(key, ScaledPrice.unit(alert.thresholdScale()));
+        };
+    }
+
+    static long keyOf(IndexedAlert alert) {
+
+        return alert.alertCondition() == AlertCondition.PRICE_ABOVE
+                ? ScaledPrice.add(alert.threshold(), ScaledPrice.unit(alert.thresholdScale()))
+                : alert.threshold();
+    }
+
+}
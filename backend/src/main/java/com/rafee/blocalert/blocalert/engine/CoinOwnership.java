@@ -0,0 +1,111 @@
+package com.rafee.blocalert.blocalert.engine;
+
+import com.google.common.hash.Hashing;
+import com.rafee.blocalert.blocalert.config.AlertEngineConfig;
+import com.rafee.blocalert.blocalert.service.RedisService;
+import com.rafee.blocalert.blocalert.utils.RedisKeys;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Splits alert evaluation between the live nodes. Nodes heartbeat into the {@code alerts:nodes}
+ * sorted set and every coin belongs to the live node with the highest rendezvous hash, so each node
+ * evaluates only its own coins and a join or leave only moves the coins of that node.
+ * <p>
+ * With scheduler leader election only the leader polls CoinGecko. It evaluates its own coins in its tick and
+ * every other node evaluates its coins when it loads the snapshot the leader published.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class CoinOwnership {
+
+    private final RedisService redisService;
+    private final AlertEngineConfig alertEngineConfig;
+    private final MeterRegistry meterRegistry;
+
+    private final String nodeId = System.getenv().getOrDefault("HOSTNAME", "node") + "-" + UUID.randomUUID().toString().substring(0, 8);
+
+    private volatile List<String> liveNodes = List.of();
+
+    @PostConstruct
+    void init() {
+
+        Gauge.builder("alert.ownership.nodes", this, ownership -> ownership.liveNodes.size())
+                .description("Live nodes sharing the alert evaluation")
+                .register(meterRegistry);
+
+        heartbeat();
+        log.info("Alert evaluation node {} registered", nodeId);
+    }
+
+    @Scheduled(fixedRateString = "${alert-engine.node-heartbeat-ms:10000}")
+    public void heartbeat() {
+
+        if (!isSharded()) return;
+
+        long now = System.currentTimeMillis();
+        long expiredBefore = now - alertEngineConfig.getNodeTtlMs();
+
+        redisService.sortedSetAdd(RedisKeys.ALERT_NODES, nodeId, now);
+        redisService.sortedSetRemoveRangeByScore(RedisKeys.ALERT_NODES, Double.NEGATIVE_INFINITY, expiredBefore);
+
+        List<String> nodes = redisService.sortedSetRangeByScore(RedisKeys.ALERT_NODES, expiredBefore, Double.POSITIVE_INFINITY)
+                .stream()
+                .sorted()
+                .toList();
+
+        if (!nodes.equals(liveNodes)) {
+            log.info("Alert evaluation nodes changed from {} to {}", liveNodes, nodes);
+            liveNodes = nodes;
+        }
+    }
+
+    public boolean owns(String cryptoId) {
+
+        List<String> nodes = liveNodes;
+
+        // not sharded or membership unknown, this node evaluates everything
+        if (!isSharded() || !nodes.contains(nodeId)) {
+            return true;
+        }
+
+        String owner = null;
+        long ownerScore = Long.MIN_VALUE;
+
+        for (String node : nodes) {
+            long score = Hashing.murmur3_128().hashString(node + ":" + cryptoId, StandardCharsets.UTF_8).asLong();
+            if (score > ownerScore) {
+                owner = node;
+                ownerScore = score;
+            }
+        }
+
+        return nodeId.equals(owner);
+    }
+
+    private boolean isSharded() {
+        return alertEngineConfig.isSharding();
+    }
+
+    public String getNodeId() {
+        return nodeId;
+    }
+
+    @PreDestroy
+    void leave() {
+        redisService.sortedSetRemove(RedisKeys.ALERT_NODES, nodeId);
+        log.info("Alert evaluation node {} left", nodeId);
+    }
+
+}
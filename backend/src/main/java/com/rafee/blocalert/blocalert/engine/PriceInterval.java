@@ -0,0 +1,31 @@
+package com.rafee.blocalert.blocalert.engine;
+
+/**
+ * Prices to match a coin against. {@code [tickLow, tickHigh]} are the prices seen since the previous tick,
+ * {@code [low, high]} may reach further, to the 24h range.
+ */
+public record PriceInterval(long price, long low, long high, long tickLow, long tickHigh) {
+
+    public static PriceInterval of(long price) {
+        return new PriceInterval(price, price, price, price, price);
+    }
+
+    /**
+     * Widens by a price seen since the previous tick.
+     */
+    public PriceInterval widen(long bound) {
+        return bound <= 0 ? this : new PriceInterval(price, Math.min(low, bound), Math.max(high, bound),
+                Math.min(tickLow, bound), Math.max(tickHigh, bound));
+    }
+
+    /**
+     * Widens by a price that may predate the previous tick, such as a 24h low or high.
+     */
+    public PriceInterval widenBeyondTick(long bound) {
+        return bound <= 0 ? this : new PriceInterval(price, Math.min(low, bound), Math.max(high, bound), tickLow, tickHigh);
+    }
+
+    public boolean reachesBeyondTick() {
+        return low < tickLow || high > tickHigh;
+    }
+}
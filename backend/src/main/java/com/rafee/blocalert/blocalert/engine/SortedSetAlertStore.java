@@ -0,0 +1,265 @@
+package com.rafee.blocalert.blocalert.engine;
+
+import com.rafee.blocalert.blocalert.DTO.internal.IndexedAlert;
+import com.rafee.blocalert.blocalert.service.RedisService;
+import com.rafee.blocalert.blocalert.utils.CachedAlertCodec;
+import com.rafee.blocalert.blocalert.utils.RedisKeys;
+import com.rafee.blocalert.blocalert.utils.ScaledPrice;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+
+import java.util.*;
+
+/**
+ * Alert index kept in Redis sorted sets, used when {@code alert-engine.storage} is SORTED_SET.
+ * <p>
+ * Alert ids are scored by the scaled price at which they start to fire, the same keys as {@link CoinAlertIndex}:
+ * one set for PRICE_ABOVE, one for PRICE_BELOW and one per threshold scale for PRICE_EQUALS. The payload stays
+ * in the {@code alerts:coin:*} hash under the field {@code alert:{id}}. Matching runs as a Lua script that reads
+ * the triggered ids, removes them from the sets and the hash and returns their payloads, so only triggered alerts
+ * leave Redis and an alert is claimed by exactly one node and one tick. The scripts of all coins of a tick share
+ * one pipeline. Alerts younger than the 24h range are also scored by their active since in {@code alerts:young:*},
+ * so a claim holds them to the prices since the previous tick.
+ * <p>
+ * Scores are doubles, exact for scaled prices below 2^53 (about 90 million).
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class SortedSetAlertStore {
+
+    // KEYS: above, below, equals per scale..., young, added  ARGV: id, key index, score, active since
+    private static final String ADD_SCRIPT = """
+            for i = 1, #KEYS - 1 do
+                redis.call('ZREM', KEYS[i], ARGV[1])
+            end
+            redis.call('ZADD', KEYS[tonumber(ARGV[2])], ARGV[3], ARGV[1])
+            redis.call('ZADD', KEYS[#KEYS - 1], ARGV[4], ARGV[1])
+            redis.call('SADD', KEYS[#KEYS], ARGV[1])
+            return 'OK'
+            """;
+
+    private static final String REMOVE_SCRIPT = """
+            for i = 1, #KEYS - 1 do
+                redis.call('ZREM', KEYS[i], unpack(ARGV))
+            end
+            redis.call('SREM', KEYS[#KEYS], unpack(ARGV))
+            return 'OK'
+            """;
+
+    // KEYS: above, below, equals per scale..., young, added, alert hash, version
+    // ARGV: price, above max, below min, alert field prefix, tick low, tick high, young since,
+    // then min and unit per equals scale
+    // set members are alert ids, the hash fields are the prefixed ids
+    private static final String CLAIM_SCRIPT = """
+            local equalsCount = #KEYS - 6
+            local young = KEYS[equalsCount + 3]
+            local added = KEYS[equalsCount + 4]
+            local price = tonumber(ARGV[1])
+            local tickLow = tonumber(ARGV[5])
+            local tickHigh = tonumber(ARGV[6])
+            local claimed = {}
+
+            redis.call('ZREMRANGEBYSCORE', young, '-inf', ARGV[7])
+
+            -- new alerts only see the current price, young ones only the prices since the previous tick
+            local function claim(key, min, max, firesWithin)
+                local entries = redis.call('ZRANGEBYSCORE', key, min, max, 'WITHSCORES')
+                for i = 1, #entries, 2 do
+                    local id = entries[i]
+                    local score = tonumber(entries[i + 1])
+                    local fires = true
+                    if redis.call('SISMEMBER', added, id) == 1 then
+                        fires = firesWithin(score, price, price)
+                    elseif redis.call('ZSCORE', young, id) then
+                        fires = firesWithin(score, tickLow, tickHigh)
+                    end
+                    if fires then
+                        redis.call('ZREM', key, id)
+                        redis.call('ZREM', young, id)
+                        claimed[#claimed + 1] = id
+                    end
+                end
+            end
+
+            claim(KEYS[1], '-inf', ARGV[2], function(score, low, high) return high >= score end)
+            claim(KEYS[2], ARGV[3], '+inf', function(score, low, high) return low < score end)
+            for i = 1, equalsCount do
+                local unit = tonumber(ARGV[7 + i * 2])
+                claim(KEYS[2 + i], ARGV[6 + i * 2], ARGV[2], function(score, low, high) return high >= score and low < score + unit end)
+            end
+
+            redis.call('DEL', added)
+
+            if #claimed == 0 then
+                return {}
+            end
+
+            -- unpack is bounded by the Lua stack, read and delete in chunks
+            local payloads = {}
+            for from = 1, #claimed, 1000 do
+                local fields = {}
+                for i = from, math.min(from + 999, #claimed) do
+                    fields[#fields + 1] = ARGV[4] .. claimed[i]
+                end
+                local values = redis.call('HMGET', KEYS[equalsCount + 5], unpack(fields))
+                redis.call('HDEL', KEYS[equalsCount + 5], unpack(fields))
+                for i = 1, #fields do
+                    if values[i] then
+                        payloads[#payloads + 1] = values[i]
+                    end
+                end
+            end
+
+            redis.call('INCR', KEYS[equalsCount + 6])
+            return payloads
+            """;
+
+    private final RedisService redisService;
+
+    /**
+     * Coins whose sorted sets are not built from the alert hash, checked with one MGET of the markers per tick
+     * so a flushed Redis or a cache rebuild is picked up on the next tick.
+     */
+    public List<String> notIndexed(Collection<String> cryptoIds) {
+
+        List<String> ids = List.copyOf(cryptoIds);
+
+        List<String> markers = redisService.valueMultiGet(ids.stream().map(RedisKeys::alertIndexedKey).toList());
+        if (markers.size() != ids.size()) return Collections.emptyList();
+
+        List<String> missing = new ArrayList<>();
+
+        for (int i = 0; i < ids.size(); i++) {
+            if (markers.get(i) == null) missing.add(ids.get(i));
+        }
+        return missing;
+    }
+
+    /**
+     * Builds the sorted sets of a coin from the alerts in its hash. Members of alerts deleted meanwhile
+     * are harmless, a claim skips ids without a payload.
+     */
+    public void index(String cryptoId, Collection<IndexedAlert> alerts) {
+
+        Map<String, Map<String, Double>> scoresByKey = new HashMap<>();
+
+        alerts.forEach(alert -> scoresByKey
+                .computeIfAbsent(keyOf(cryptoId, alert), k -> new HashMap<>())
+                .put(String.valueOf(alert.alertId()), (double) CoinAlertIndex.keyOf(alert)));
+
+        long youngSince = System.currentTimeMillis() - CoinAlertIndex.RANGE_24H_MS;
+        alerts.stream().filter(alert -> alert.activeSince() > youngSince).forEach(alert -> scoresByKey
+                .computeIfAbsent(RedisKeys.alertYoungKey(cryptoId), k -> new HashMap<>())
+                .put(String.valueOf(alert.alertId()), (double) alert.activeSince()));
+
+        scoresByKey.forEach(redisService::sortedSetAddAll);
+        redisService.valueSet(RedisKeys.alertIndexedKey(cryptoId), System.currentTimeMillis());
+
+        log.info("Indexed {} alerts of {} in sorted sets", alerts.size(), cryptoId);
+    }
+
+    public void add(String cryptoId, IndexedAlert alert) {
+
+        List<String> keys = keys(cryptoId);
+        keys.add(RedisKeys.alertAddedKey(cryptoId));
+
+        redisService.scriptExecute(ADD_SCRIPT, keys, List.of(
+                String.valueOf(alert.alertId()),
+                String.valueOf(keys.indexOf(keyOf(cryptoId, alert)) + 1),
+                String.valueOf(CoinAlertIndex.keyOf(alert)),
+                String.valueOf(alert.activeSince())
+        ));
+    }
+
+    public void remove(String cryptoId, Collection<Long> alertIds) {
+
+        if (alertIds.isEmpty()) return;
+
+        List<String> keys = keys(cryptoId);
+        keys.add(RedisKeys.alertAddedKey(cryptoId));
+
+        redisService.scriptExecute(REMOVE_SCRIPT, keys, alertIds.stream().map(String::valueOf).toList());
+    }
+
+    /**
+     * Claims the alerts triggered by the interval of each coin. The coins are claimed in one pipeline, one
+     * script call per coin, so a tick costs a single round trip. Alerts added since the last claim only see
+     * the current price, alerts younger than the 24h range only the prices since the previous tick.
+     */
+    public Map<String, List<IndexedAlert>> claim(Map<String, PriceInterval> intervals) {
+
+        List<String> cryptoIds = List.copyOf(intervals.keySet());
+        List<List<String>> calls = new ArrayList<>(cryptoIds.size());
+        long youngSince = System.currentTimeMillis() - CoinAlertIndex.RANGE_24H_MS;
+        int keyCount = 0;
+
+        for (String cryptoId : cryptoIds) {
+
+            PriceInterval interval = intervals.get(cryptoId);
+
+            List<String> keysAndArgs = keys(cryptoId);
+            keysAndArgs.add(RedisKeys.alertAddedKey(cryptoId));
+            keysAndArgs.add(RedisKeys.alertKey(cryptoId));
+            keysAndArgs.add(RedisKeys.alertVersionKey(cryptoId));
+            keyCount = keysAndArgs.size();
+
+            keysAndArgs.add(String.valueOf(interval.price()));
+            keysAndArgs.add(String.valueOf(interval.high()));
+            keysAndArgs.add("(" + interval.low());
+            keysAndArgs.add(RedisKeys.ALERT_FIELD_PREFIX);
+            keysAndArgs.add(String.valueOf(interval.tickLow()));
+            keysAndArgs.add(String.valueOf(interval.tickHigh()));
+            keysAndArgs.add(String.valueOf(youngSince));
+
+            for (int scale = ScaledPrice.MIN_SCALE; scale <= ScaledPrice.SCALE; scale++) {
+                long unit = ScaledPrice.unit(scale);
+                keysAndArgs.add(String.valueOf(interval.low() - unit + 1));
+                keysAndArgs.add(String.valueOf(unit));
+            }
+            calls.add(keysAndArgs);
+        }
+
+        List<List<byte[]>> payloadsPerCoin = redisService.scriptExecuteAllForBytes(CLAIM_SCRIPT, keyCount, calls);
+        Map<String, List<IndexedAlert>> claimed = new HashMap<>();
+
+        for (int i = 0; i < payloadsPerCoin.size() && i < cryptoIds.size(); i++) {
+
+            List<IndexedAlert> alerts = new ArrayList<>();
+
+            for (byte[] payload : payloadsPerCoin.get(i)) {
+                if (CachedAlertCodec.isEncoded(payload)) {
+                    alerts.add(CachedAlertCodec.decode(payload));
+                } else {
+                    log.warn("Skipping claimed alert of {} that is not in the binary format", cryptoIds.get(i));
+                }
+            }
+            claimed.put(cryptoIds.get(i), alerts);
+        }
+        return claimed;
+    }
+
+    private List<String> keys(String cryptoId) {
+
+        List<String> keys = new ArrayList<>();
+        keys.add(RedisKeys.alertAboveKey(cryptoId));
+        keys.add(RedisKeys.alertBelowKey(cryptoId));
+
+        for (int scale = ScaledPrice.MIN_SCALE; scale <= ScaledPrice.SCALE; scale++) {
+            keys.add(RedisKeys.alertEqualsKey(cryptoId, scale));
+        }
+        keys.add(RedisKeys.alertYoungKey(cryptoId));
+        return keys;
+    }
+
+    private String keyOf(String cryptoId, IndexedAlert alert) {
+
+        return switch (alert.alertCondition()) {
+            case PRICE_ABOVE -> RedisKeys.alertAboveKey(cryptoId);
+            case PRICE_BELOW -> RedisKeys.alertBelowKey(cryptoId);
+            case PRICE_EQUALS -> RedisKeys.alertEqualsKey(cryptoId, alert.thresholdScale());
+        };
+    }
+
+}
@@ -0,0 +1,115 @@
+package com.rafee.blocalert.blocalert.engine;
+
+import com.rafee.blocalert.blocalert.DTO.internal.IndexedAlert;
+
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.function.ToLongFunction;
+
+/**
+ * Alerts sorted by a scaled price key in parallel arrays, so a price range maps to a contiguous slice.
+ */
+final class ThresholdBook {
+
+    private static final int INITIAL_CAPACITY = 8;
+
+    private long[] keys = new long[INITIAL_CAPACITY];
+    private IndexedAlert[] alerts = new IndexedAlert[INITIAL_CAPACITY];
+    private int size;
+
+    int size() {
+        return size;
+    }
+
+    /**
+     * Bulk load of an empty book, sorting once instead of shifting the arrays on every insert.
+     */
+    void load(List<IndexedAlert> entries, ToLongFunction<IndexedAlert> keyOf) {
+
+        IndexedAlert[] sorted = entries.toArray(new IndexedAlert[0]);
+        Arrays.sort(sorted, Comparator.comparingLong(keyOf));
+
+        keys = new long[Math.max(INITIAL_CAPACITY, sorted.length)];
+        alerts = Arrays.copyOf(sorted, keys.length);
+        size = sorted.length;
+
+        for (int i = 0; i < size; i++) {
+            keys[i] = keyOf.applyAsLong(sorted[i]);
+        }
+    }
+
+    void add(long key, IndexedAlert alert) {
+
+        if (size == keys.length) {
+            int capacity = keys.length * 2;
+            keys = Arrays.copyOf(keys, capacity);
+            alerts = Arrays.copyOf(alerts, capacity);
+        }
+
+        int position = upperBound(key);
+        System.arraycopy(keys, position, keys, position + 1, size - position);
+        System.arraycopy(alerts, position, alerts, position + 1, size - position);
+
+        keys[position] = key;
+        alerts[position] = alert;
+        size++;
+    }
+
+    boolean remove(long key, long alertId) {
+
+        for (int i = lowerBound(key); i < size && keys[i] == key; i++) {
+
+            if (alerts[i].alertId() == alertId) {
+                System.arraycopy(keys, i + 1, keys, i, size - i - 1);
+                System.arraycopy(alerts, i + 1, alerts, i, size - i - 1);
+                alerts[--size] = null;
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * First position whose key is {@code >= key}.
+     */
+    int lowerBound(long key) {
+
+        int low = 0, high = size;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (keys[mid] < key) low = mid + 1;
+            else high = mid;
+        }
+        return low;
+    }
+
+    /**
+     * First position whose key is {@code > key}.
+     */
+    int upperBound(long key) {
+
+        int low = 0, high = size;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (keys[mid] <= key) low = mid + 1;
+            else high = mid;
+        }
+        return low;
+    }
+
+    /**
+     * Number of alerts whose key lies in [low, high].
+     */
+    int count(long low, long high) {
+        return Math.max(0, upperBound(high) - lowerBound(low));
+    }
+
+    void collect(int from, int to, List<IndexedAlert> out) {
+
+        if (from < to) {
+            out.addAll(Arrays.asList(alerts).subList(from, to));
+        }
+    }
+
+}
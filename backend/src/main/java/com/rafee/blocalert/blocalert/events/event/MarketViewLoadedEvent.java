@@ -0,0 +1,10 @@
+package com.rafee.blocalert.blocalert.events.event;
+
+import com.rafee.blocalert.blocalert.market.MarketView;
+
+/**
+ * A node swapped in a market view written by another node.
+ */
+public record MarketViewLoadedEvent(MarketView view) {
+
+}
@@ -2,13 +2,21 @@ package com.rafee.blocalert.blocalert.events.publisher;
 
 import com.rafee.blocalert.blocalert.events.event.AlertNotificationEvent;
 import com.rafee.blocalert.blocalert.DTO.internal.UserAlertNotification;
+import com.rafee.blocalert.blocalert.entity.enums.AlertChannel;
+import com.rafee.blocalert.blocalert.events.event.MarketViewLoadedEvent;
 import com.rafee.blocalert.blocalert.events.event.SendAlertEvent;
+import com.rafee.blocalert.blocalert.config.AlertEngineConfig;
+import com.rafee.blocalert.blocalert.config.SchedulerConfig;
+import com.rafee.blocalert.blocalert.schedulers.LeaderElection;
+import com.rafee.blocalert.blocalert.metrics.TickMetrics;
 import com.rafee.blocalert.blocalert.service.AlertService;
 import com.rafee.blocalert.blocalert.service.CryptoService;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.context.annotation.Lazy;
+import org.springframework.context.event.EventListener;
 import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.scheduling.annotation.Async;
 import org.springframework.stereotype.Service;
 
 import java.util.List;
@@ -19,9 +27,35 @@ public class AlertNotificationPublisher {
 
     private final KafkaTemplate<String, Object> kafkaTemplate;
     private final AlertService alertService;
-    public AlertNotificationPublisher(KafkaTemplate<String, Object> kafkaTemplate, @Lazy AlertService alertService) {  // TODO : change to another event
+    private final TickMetrics tickMetrics;
+    private final AlertEngineConfig alertEngineConfig;
+    private final SchedulerConfig schedulerConfig;
+    private final LeaderElection leaderElection;
+    public AlertNotificationPublisher(KafkaTemplate<String, Object> kafkaTemplate, @Lazy AlertService alertService, TickMetrics tickMetrics,  // TODO : change to another event
+                                      AlertEngineConfig alertEngineConfig, SchedulerConfig schedulerConfig, LeaderElection leaderElection) {
         this.kafkaTemplate = kafkaTemplate;
         this.alertService = alertService;
+        this.tickMetrics = tickMetrics;
+        this.alertEngineConfig = alertEngineConfig;
+        this.schedulerConfig = schedulerConfig;
+        this.leaderElection = leaderElection;
+    }
+
+    /**
+     * With sharding under leader election only the leader polls and evaluates its own coins in its tick,
+     * the other nodes evaluate their coins of each snapshot the leader published once they load it.
+     */
+    @Async
+    @EventListener
+    public synchronized void handleMarketViewLoaded(MarketViewLoadedEvent event) {
+
+        if (!alertEngineConfig.isSharding() || !schedulerConfig.isLeaderElection() || leaderElection.isLeader()) return;
+
+        try {
+            publishAlertNotifications(new SendAlertEvent(event.view().liteList()));
+        } catch (Exception e) {
+            log.error("Failed to evaluate alerts of market view version {}", event.view().version(), e);
+        }
     }
 
     public void publishAlertNotifications(SendAlertEvent sendAlertEvent) {
@@ -35,25 +69,28 @@ public class AlertNotificationPublisher {
             return;
         }
 
-        publishAlerts("websocket-alerts", alertNotificationList);
+        publishAlerts("websocket-alerts", AlertChannel.WEBSOCKET, alertNotificationList);
 
         List<UserAlertNotification> smsAlerts = alertNotificationList.stream()
                 .filter(UserAlertNotification::isSmsSubscribed)
                 .toList();
 
-        if (!smsAlerts.isEmpty()) publishAlerts("sms-alerts", smsAlerts);
+        if (!smsAlerts.isEmpty()) publishAlerts("sms-alerts", AlertChannel.SMS, smsAlerts);
 
         List<UserAlertNotification> emailAlerts = alertNotificationList.stream()
                 .filter(UserAlertNotification::isEmailSubscribed)
                 .toList();
 
-        if (!emailAlerts.isEmpty()) publishAlerts("email-alerts", emailAlerts);
+        if (!emailAlerts.isEmpty()) publishAlerts("email-alerts", AlertChannel.EMAIL, emailAlerts);
 
     }
 
-    private void publishAlerts(String topic, List<UserAlertNotification> alerts) {
+    private void publishAlerts(String topic, AlertChannel channel, List<UserAlertNotification> alerts) {
         try {
-            kafkaTemplate.send(topic, new AlertNotificationEvent(alerts));
+            long start = System.nanoTime();
+            kafkaTemplate.send(topic, new AlertNotificationEvent(alerts)).whenComplete((result, e) -> {
+                if (e == null) tickMetrics.recordFanOut(channel.name().toLowerCase(), start, alerts.size());
+            });
             log.info("Published {} alerts to {}", alerts.size(), topic);
         } catch (Exception e) {
             log.error("Failed to publish to {}: {}", topic, e.getMessage(), e);
@@ -0,0 +1,11 @@
+package com.rafee.blocalert.blocalert.exception;
+
+/**
+ * The shared CoinGecko request budget had no permit left within the wait. Not retried, the budget
+ * does not recover within the retry backoff.
+ */
+public class RequestBudgetExceededException extends ExternalApiException {
+    public RequestBudgetExceededException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,303 @@
+package com.rafee.blocalert.blocalert.market;
+
+import com.rafee.blocalert.blocalert.DTO.internal.CryptoMarketLite;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+
+import java.text.Normalizer;
+import java.util.*;
+import java.util.stream.IntStream;
+
+/**
+ * Name and symbol search over the market view. Each coin is indexed by the 1, 2 and 3 character grams of its
+ * normalized name and symbol, and by its symbol, name and name words in a sorted prefix table. A term of up to
+ * 3 characters is answered by its gram list, a longer one by intersecting its trigram lists and checking the
+ * few candidates left.
+ * <p>
+ * Results are ranked exact symbol first, then symbol / name / word prefix, then any other match, each by
+ * market cap. The index follows the view version: the grams are only rebuilt when the coins or their names
+ * change, a price tick just swaps in the new coins and market cap order.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class CryptoSearchIndex {
+
+    private static final int MAX_GRAM = 3;
+    private static final byte NO_MATCH = 3;
+
+    private final MeterRegistry meterRegistry;
+
+    private volatile Index index;
+
+    public List<CryptoMarketLite> search(MarketView view, String term, int limit) {
+
+        String query = normalize(term);
+        if (query.isEmpty() || limit <= 0) {
+            return List.of();
+        }
+
+        return indexFor(view).search(query, limit);
+    }
+
+    private Index indexFor(MarketView view) {
+
+        Index current = index;
+        if (current != null && current.version == view.version()) {
+            return current;
+        }
+
+        synchronized (this) {
+
+            current = index;
+            if (current != null && current.version == view.version()) {
+                return current;
+            }
+
+            Index built;
+            if (current != null && current.sameCoins(view.liteList())) {
+                built = current.withMarketData(view.version(), view.liteList());
+                meterRegistry.counter("crypto.search.index.builds", "type", "refresh").increment();
+            } else {
+                built = Index.build(view.version(), view.liteList());
+                meterRegistry.counter("crypto.search.index.builds", "type", "full").increment();
+                log.info("Built crypto search index for version {} with {} cryptos", view.version(), built.coins.length);
+            }
+
+            index = built;
+            return built;
+        }
+    }
+
+    static String normalize(String value) {
+
+        if (value == null) return "";
+
+        String decomposed = Normalizer.normalize(value.trim(), Normalizer.Form.NFD);
+        return decomposed.replaceAll("\\p{M}+", "").toLowerCase(Locale.ROOT);
+    }
+
+    private static final class Index {
+
+        final long version;
+        final CryptoMarketLite[] coins;
+        final String[] names;
+        final String[] symbols;
+        final Map<String, Integer> docById;
+        final Map<String, int[]> symbolDocs;
+        final String[] prefixKeys;
+        final int[] prefixDocs;
+        final Map<String, int[]> grams;
+        final int[] byMarketCap;
+
+        private Index(long version, CryptoMarketLite[] coins, String[] names, String[] symbols,
+                      Map<String, Integer> docById, Map<String, int[]> symbolDocs, String[] prefixKeys,
+                      int[] prefixDocs, Map<String, int[]> grams) {
+
+            this.version = version;
+            this.coins = coins;
+            this.names = names;
+            this.symbols = symbols;
+            this.docById = docById;
+            this.symbolDocs = symbolDocs;
+            this.prefixKeys = prefixKeys;
+            this.prefixDocs = prefixDocs;
+            this.grams = grams;
+            this.byMarketCap = marketCapOrder(coins);
+        }
+
+        static Index build(long version, List<CryptoMarketLite> liteList) {
+
+            List<CryptoMarketLite> unique = new ArrayList<>(liteList.size());
+            Map<String, Integer> docById = new HashMap<>();
+
+            for (CryptoMarketLite coin : liteList) {
+                if (coin.id() != null && docById.putIfAbsent(coin.id(), unique.size()) == null) {
+                    unique.add(coin);
+                }
+            }
+
+            int size = unique.size();
+            CryptoMarketLite[] coins = unique.toArray(new CryptoMarketLite[0]);
+            String[] names = new String[size];
+            String[] symbols = new String[size];
+
+            Map<String, List<Integer>> symbolLists = new HashMap<>();
+            Map<String, List<Integer>> gramLists = new HashMap<>();
+            List<Map.Entry<String, Integer>> prefixEntries = new ArrayList<>();
+
+            for (int doc = 0; doc < size; doc++) {
+
+                names[doc] = normalize(coins[doc].name());
+                symbols[doc] = normalize(coins[doc].symbol());
+
+                symbolLists.computeIfAbsent(symbols[doc], s -> new ArrayList<>()).add(doc);
+
+                Set<String> keys = new HashSet<>();
+                keys.add(symbols[doc]);
+                keys.add(names[doc]);
+                for (String word : names[doc].split("[^\\p{Alnum}]+")) {
+                    keys.add(word);
+                }
+                for (String key : keys) {
+                    if (!key.isEmpty()) prefixEntries.add(Map.entry(key, doc));
+                }
+
+                Set<String> docGrams = new HashSet<>();
+                addGrams(names[doc], docGrams);
+                addGrams(symbols[doc], docGrams);
+                for (String gram : docGrams) {
+                    gramLists.computeIfAbsent(gram, g -> new ArrayList<>()).add(doc);
+                }
+            }
+
+            prefixEntries.sort(Map.Entry.comparingByKey());
+            String[] prefixKeys = new String[prefixEntries.size()];
+            int[] prefixDocs = new int[prefixEntries.size()];
+            for (int i = 0; i < prefixEntries.size(); i++) {
+                prefixKeys[i] = prefixEntries.get(i).getKey();
+                prefixDocs[i] = prefixEntries.get(i).getValue();
+            }
+
+            return new Index(version, coins, names, symbols, docById, toArrays(symbolLists),
+                    prefixKeys, prefixDocs, toArrays(gramLists));
+        }
+
+        boolean sameCoins(List<CryptoMarketLite> liteList) {
+
+            if (liteList.size() != coins.length) return false;
+
+            for (CryptoMarketLite coin : liteList) {
+                Integer doc = coin.id() != null ? docById.get(coin.id()) : null;
+                if (doc == null
+                        || !Objects.equals(coin.name(), coins[doc].name())
+                        || !Objects.equals(coin.symbol(), coins[doc].symbol())) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        Index withMarketData(long version, List<CryptoMarketLite> liteList) {
+
+            CryptoMarketLite[] updated = new CryptoMarketLite[coins.length];
+            for (CryptoMarketLite coin : liteList) {
+                updated[docById.get(coin.id())] = coin;
+            }
+
+            return new Index(version, updated, names, symbols, docById, symbolDocs, prefixKeys, prefixDocs, grams);
+        }
+
+        List<CryptoMarketLite> search(String query, int limit) {
+
+            byte[] tiers = new byte[coins.length];
+            Arrays.fill(tiers, NO_MATCH);
+
+            if (query.length() <= MAX_GRAM) {
+                for (int doc : grams.getOrDefault(query, new int[0])) {
+                    tiers[doc] = 2;
+                }
+            } else {
+                for (int doc : trigramCandidates(query)) {
+                    if (names[doc].contains(query) || symbols[doc].contains(query)) {
+                        tiers[doc] = 2;
+                    }
+                }
+            }
+
+            int from = lowerBound(query);
+            for (int i = from; i < prefixKeys.length && prefixKeys[i].startsWith(query); i++) {
+                tiers[prefixDocs[i]] = 1;
+            }
+
+            for (int doc : symbolDocs.getOrDefault(query, new int[0])) {
+                tiers[doc] = 0;
+            }
+
+            List<CryptoMarketLite> results = new ArrayList<>(Math.min(limit, coins.length));
+            for (byte tier = 0; tier < NO_MATCH && results.size() < limit; tier++) {
+                for (int doc : byMarketCap) {
+                    if (tiers[doc] != tier) continue;
+                    results.add(coins[doc]);
+                    if (results.size() == limit) break;
+                }
+            }
+            return results;
+        }
+
+        private int[] trigramCandidates(String query) {
+
+            List<int[]> lists = new ArrayList<>();
+            for (int i = 0; i + MAX_GRAM <= query.length(); i++) {
+                int[] docs = grams.get(query.substring(i, i + MAX_GRAM));
+                if (docs == null) return new int[0];
+                lists.add(docs);
+            }
+
+            lists.sort(Comparator.comparingInt(docs -> docs.length));
+
+            int[] candidates = lists.getFirst();
+            for (int i = 1; i < lists.size() && candidates.length > 0; i++) {
+                candidates = intersect(candidates, lists.get(i));
+            }
+            return candidates;
+        }
+
+        private int lowerBound(String query) {
+
+            int low = 0;
+            int high = prefixKeys.length;
+            while (low < high) {
+                int mid = (low + high) >>> 1;
+                if (prefixKeys[mid].compareTo(query) < 0) low = mid + 1;
+                else high = mid;
+            }
+            return low;
+        }
+
+        private static void addGrams(String value, Set<String> docGrams) {
+
+            for (int length = 1; length <= MAX_GRAM; length++) {
+                for (int i = 0; i + length <= value.length(); i++) {
+                    docGrams.add(value.substring(i, i + length));
+                }
+            }
+        }
+
+        private static int[] intersect(int[] left, int[] right) {
+
+            int[] result = new int[Math.min(left.length, right.length)];
+            int count = 0;
+            for (int i = 0, j = 0; i < left.length && j < right.length; ) {
+                if (left[i] < right[j]) i++;
+                else if (left[i] > right[j]) j++;
+                else {
+                    result[count++] = left[i];
+                    i++;
+                    j++;
+                }
+            }
+            return Arrays.copyOf(result, count);
+        }
+
+        private static Map<String, int[]> toArrays(Map<String, List<Integer>> lists) {
+
+            Map<String, int[]> arrays = new HashMap<>(lists.size() * 2);
+            lists.forEach((key, docs) -> arrays.put(key, docs.stream().mapToInt(Integer::intValue).toArray()));
+            return arrays;
+        }
+
+        private static int[] marketCapOrder(CryptoMarketLite[] coins) {
+
+            return IntStream.range(0, coins.length)
+                    .boxed()
+                    .sorted(Comparator.comparing((Integer doc) -> coins[doc].market_cap(),
+                            Comparator.nullsLast(Comparator.reverseOrder())))
+                    .mapToInt(Integer::intValue)
+                    .toArray();
+        }
+    }
+
+}
@@ -0,0 +1,70 @@
+package com.rafee.blocalert.blocalert.market;
+
+import com.rafee.blocalert.blocalert.DTO.internal.CryptoMarketLite;
+
+import java.util.Comparator;
+import java.util.Locale;
+
+/**
+ * Order of the crypto table, written {@code field} or {@code field,asc|desc} with the JSON field names of
+ * {@link CryptoMarketLite}. Without a direction each field uses its usual one, names A to Z and numbers
+ * highest first.
+ */
+public record CryptoSort(Field field, boolean descending) {
+
+    public static final CryptoSort DEFAULT = new CryptoSort(Field.MARKET_CAP, true);
+
+    public enum Field {
+
+        MARKET_CAP("market_cap", true,
+                Comparator.comparing(CryptoMarketLite::market_cap, Comparator.nullsFirst(Comparator.naturalOrder()))),
+        PRICE("current_price", true,
+                Comparator.comparing(CryptoMarketLite::current_price, Comparator.nullsFirst(Comparator.naturalOrder()))),
+        CHANGE_24H("price_change_percentage_24h", true,
+                Comparator.comparingDouble(CryptoMarketLite::price_change_percentage_24h)),
+        NAME("name", false,
+                Comparator.comparing(CryptoMarketLite::name, Comparator.nullsFirst(String.CASE_INSENSITIVE_ORDER)));
+
+        private final String jsonName;
+        private final boolean descendingByDefault;
+        private final Comparator<CryptoMarketLite> ascending;
+
+        Field(String jsonName, boolean descendingByDefault, Comparator<CryptoMarketLite> ascending) {
+            this.jsonName = jsonName;
+            this.descendingByDefault = descendingByDefault;
+            this.ascending = ascending;
+        }
+
+        Comparator<CryptoMarketLite> ascending() {
+            return ascending;
+        }
+    }
+
+    /**
+     * @return the default sort for a blank value, null when the value is not a supported sort
+     */
+    public static CryptoSort parse(String value) {
+
+        if (value == null || value.isBlank()) {
+            return DEFAULT;
+        }
+
+        String[] parts = value.trim().toLowerCase(Locale.ROOT).split("\\s*,\\s*");
+        if (parts.length > 2) return null;
+
+        for (Field field : Field.values()) {
+
+            if (!field.jsonName.equals(parts[0])) continue;
+
+            if (parts.length == 1) return new CryptoSort(field, field.descendingByDefault);
+
+            return switch (parts[1]) {
+                case "asc" -> new CryptoSort(field, false);
+                case "desc" -> new CryptoSort(field, true);
+                default -> null;
+            };
+        }
+        return null;
+    }
+
+}
@@ -0,0 +1,65 @@
+package com.rafee.blocalert.blocalert.market;
+
+import com.rafee.blocalert.blocalert.DTO.Pagination;
+import com.rafee.blocalert.blocalert.DTO.internal.CryptoMarketLite;
+import com.rafee.blocalert.blocalert.DTO.response.CryptoResponse;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * The coins of one market snapshot sorted once by every {@link CryptoSort.Field}, so a page of any sort is a
+ * sub list. Descending orders are reversed views of the ascending ones, where ties come best market cap rank first.
+ */
+public final class CryptoTable {
+
+    private final Map<CryptoSort.Field, List<CryptoMarketLite>> ascendingByField;
+    private final int size;
+
+    private CryptoTable(Map<CryptoSort.Field, List<CryptoMarketLite>> ascendingByField, int size) {
+        this.ascendingByField = ascendingByField;
+        this.size = size;
+    }
+
+    public static CryptoTable of(List<CryptoMarketLite> liteList) {
+
+        Comparator<CryptoMarketLite> rankTieBreak = Comparator.comparingInt(CryptoMarketLite::market_cap_rank).reversed();
+        Map<CryptoSort.Field, List<CryptoMarketLite>> ascendingByField = new EnumMap<>(CryptoSort.Field.class);
+
+        for (CryptoSort.Field field : CryptoSort.Field.values()) {
+            List<CryptoMarketLite> sorted = new ArrayList<>(liteList);
+            sorted.sort(field.ascending().thenComparing(rankTieBreak));
+            ascendingByField.put(field, List.copyOf(sorted));
+        }
+
+        return new CryptoTable(ascendingByField, liteList.size());
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public List<CryptoMarketLite> sorted(CryptoSort sort) {
+
+        List<CryptoMarketLite> ascending = ascendingByField.get(sort.field());
+        return sort.descending() ? ascending.reversed() : ascending;
+    }
+
+    /**
+     * Page numbers start at 1, a page past the end is answered with the last page.
+     */
+    public CryptoResponse page(CryptoSort sort, int page, int pageSize) {
+
+        int totalPages = (int) Math.ceil((double) size / pageSize);
+        int currentPage = Math.clamp(page, 1, Math.max(totalPages, 1));
+
+        int fromIndex = Math.min((currentPage - 1) * pageSize, size);
+        int toIndex = Math.min(fromIndex + pageSize, size);
+
+        return new CryptoResponse(sorted(sort).subList(fromIndex, toIndex), new Pagination(currentPage, pageSize, totalPages));
+    }
+
+}
@@ -0,0 +1,304 @@
+package com.rafee.blocalert.blocalert.market;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.google.common.hash.Hashing;
+import com.rafee.blocalert.blocalert.DTO.internal.CryptoMarketData;
+import com.rafee.blocalert.blocalert.DTO.internal.CryptoMarketLite;
+import com.rafee.blocalert.blocalert.DTO.internal.MarketSnapshot;
+import com.rafee.blocalert.blocalert.events.event.MarketViewLoadedEvent;
+import com.rafee.blocalert.blocalert.service.RedisService;
+import com.rafee.blocalert.blocalert.timeseries.PriceHistoryStore;
+import com.rafee.blocalert.blocalert.utils.RedisKeys;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.redis.listener.ChannelTopic;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Market snapshot of the node, kept as an immutable {@link MarketView} and mirrored to Redis.
+ * <ul>
+ *     <li>a coin of the full hash is written only when the hash of its JSON differs from the last written one,
+ *     and its field is deleted once the coin is no longer in the snapshot</li>
+ *     <li>the lite list is written when it or any coin changed, and each write bumps {@code crypto:data:lite:version}</li>
+ *     <li>the writer swaps in the new view and announces the version on {@code market:version}, other nodes
+ *     load that version from Redis once, swap it in and publish a {@link MarketViewLoadedEvent}, a periodic
+ *     check catches missed announcements</li>
+ * </ul>
+ * Readers only dereference the current view, Redis stays the source of truth between nodes.
+ * <p>
+ * The written hashes are only trusted while the version in Redis is the one this node wrote last, after a
+ * flush, a restart or a write from another node everything is written again.
+ * <p>
+ * Writes carry the fencing token of the scheduler lease and are refused once a newer leader took over,
+ * a token of 0 writes unconditionally.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class MarketSnapshotStore {
+
+    // KEYS hash, leader token  ARGV fencing token, prune all, removed count, removed field, ..., field, value, ...
+    // prune all deletes every field not written by this call, used when the fields in Redis are unknown
+    private static final String FENCED_HASH_WRITE_SCRIPT = """
+            if ARGV[1] ~= '0' and redis.call('GET', KEYS[2]) ~= ARGV[1] then return -1 end
+            local first = 4 + tonumber(ARGV[3])
+            if ARGV[2] == '1' then
+                local written = {}
+                for i = first, #ARGV, 2 do
+                    written[ARGV[i]] = true
+                end
+                for _, field in ipairs(redis.call('HKEYS', KEYS[1])) do
+                    if not written[field] then redis.call('HDEL', KEYS[1], field) end
+                end
+            end
+            for i = 4, first - 1 do
+                redis.call('HDEL', KEYS[1], ARGV[i])
+            end
+            for i = first, #ARGV, 2 do
+                redis.call('HSET', KEYS[1], ARGV[i], ARGV[i + 1])
+            end
+            return 1
+            """;
+
+    // KEYS lite, lite version, leader token, tick  ARGV fencing token, lite json, tick json
+    private static final String FENCED_LITE_WRITE_SCRIPT = """
+            if ARGV[1] ~= '0' and redis.call('GET', KEYS[3]) ~= ARGV[1] then return -1 end
+            redis.call('SET', KEYS[1], ARGV[2])
+            redis.call('SET', KEYS[4], ARGV[3])
+            return redis.call('INCR', KEYS[2])
+            """;
+
+    private final RedisService redisService;
+    private final ObjectMapper objectMapper;
+    private final RedisMessageListenerContainer redisMessageListenerContainer;
+    private final MeterRegistry meterRegistry;
+    private final PriceHistoryStore priceHistoryStore;
+    private final ApplicationEventPublisher eventPublisher;
+
+    private final Map<String, Long> writtenCoinHashes = new HashMap<>();
+    private long writtenLiteHash;
+    private long writtenVersion = -1;
+
+    private volatile MarketView view;
+
+    @PostConstruct
+    void init() {
+
+        redisMessageListenerContainer.addMessageListener(
+                (message, pattern) -> onVersionAnnounced(new String(message.getBody(), StandardCharsets.UTF_8)),
+                new ChannelTopic(RedisKeys.MARKET_VERSION_CHANNEL));
+
+        Gauge.builder("market.view.version", this, store -> store.view != null ? store.view.version() : -1)
+                .description("Version of the market view held by this node")
+                .register(meterRegistry);
+    }
+
+    /**
+     * @return false when the write was fenced off by a newer leader
+     */
+    public synchronized boolean write(MarketSnapshot snapshot, long fencingToken) {
+
+        long fetchedAt = System.currentTimeMillis();
+        Long redisVersion = readVersion();
+        boolean rewrite = redisVersion == null || redisVersion != writtenVersion;
+
+        if (rewrite) {
+            writtenCoinHashes.clear();
+        }
+
+        Map<String, String> changedCoins = new LinkedHashMap<>();
+        Map<String, Long> changedHashes = new HashMap<>();
+
+        snapshot.fullJsonById().forEach((id, json) -> {
+            long hash = hash(json);
+            Long written = writtenCoinHashes.get(id);
+            if (written == null || written != hash) {
+                changedCoins.put(id, json);
+                changedHashes.put(id, hash);
+            }
+        });
+
+        // coins that left the tracked set, on a rewrite the Redis fields are unknown and the script prunes them all
+        List<String> removedCoins = writtenCoinHashes.keySet().stream()
+                .filter(id -> !snapshot.fullJsonById().containsKey(id))
+                .toList();
+
+        boolean coinsChanged = !changedCoins.isEmpty() || !removedCoins.isEmpty();
+        String token = String.valueOf(fencingToken);
+
+        if (coinsChanged || rewrite) {
+
+            List<String> args = new ArrayList<>(changedCoins.size() * 2 + removedCoins.size() + 3);
+            args.add(token);
+            args.add(rewrite ? "1" : "0");
+            args.add(String.valueOf(removedCoins.size()));
+            args.addAll(removedCoins);
+            changedCoins.forEach((id, json) -> {
+                args.add(id);
+                args.add(json);
+            });
+
+            Long result = redisService.scriptExecuteForLong(FENCED_HASH_WRITE_SCRIPT,
+                    List.of(RedisKeys.CRYPTO_FULL_HASH, RedisKeys.SCHEDULER_LEADER_TOKEN), args);
+
+            if (result != null && result == -1) return false;
+            if (result != null) {
+                removedCoins.forEach(writtenCoinHashes::remove);
+                writtenCoinHashes.putAll(changedHashes);
+            }
+        }
+
+        meterRegistry.counter("market.snapshot.coins", "result", "written").increment(changedCoins.size());
+        meterRegistry.counter("market.snapshot.coins", "result", "skipped").increment(snapshot.fullJsonById().size() - changedCoins.size());
+        meterRegistry.counter("market.snapshot.coins", "result", "removed").increment(removedCoins.size());
+
+        String liteJson = snapshot.liteListJson();
+        long liteHash = hash(liteJson);
+
+        if (rewrite || liteHash != writtenLiteHash || coinsChanged) {
+
+            String tickJson = toJson(new MarketTick(fetchedAt, snapshot.volumeById()));
+            Long version = redisService.scriptExecuteForLong(FENCED_LITE_WRITE_SCRIPT,
+                    List.of(RedisKeys.CRYPTO_DATA_LITE, RedisKeys.CRYPTO_DATA_LITE_VERSION, RedisKeys.SCHEDULER_LEADER_TOKEN,
+                            RedisKeys.CRYPTO_DATA_TICK),
+                    List.of(token, liteJson, tickJson));
+
+            if (version != null && version == -1) return false;
+
+            if (version != null) {
+                writtenVersion = version;
+                writtenLiteHash = liteHash;
+            }
+        }
+
+        MarketView current = view;
+        if (current == null || current.version() != writtenVersion || coinsChanged) {
+            swap(new MarketView(writtenVersion, fetchedAt, snapshot.liteList(), snapshot.fullById(), snapshot.volumeById()));
+            redisService.publish(RedisKeys.MARKET_VERSION_CHANNEL, String.valueOf(writtenVersion));
+        }
+
+        return true;
+    }
+
+    /**
+     * Current view, loaded from Redis when this node has none yet. Null when Redis has no snapshot either.
+     */
+    public MarketView view() {
+
+        MarketView current = view;
+        return current != null ? current : reload();
+    }
+
+    @Scheduled(fixedDelay = 15000, initialDelay = 15000)
+    public void checkVersion() {
+
+        Long version = readVersion();
+        MarketView current = view;
+
+        if (version != null && (current == null || current.version() != version)) {
+            meterRegistry.counter("market.view.reloads", "trigger", "check").increment();
+            reload();
+        }
+    }
+
+    private void onVersionAnnounced(String message) {
+
+        try {
+            long version = Long.parseLong(message);
+            MarketView current = view;
+
+            if (current == null || current.version() != version) {
+                meterRegistry.counter("market.view.reloads", "trigger", "announcement").increment();
+                reload();
+            }
+        } catch (NumberFormatException e) {
+            log.warn("Ignoring market version announcement {}", message);
+        }
+    }
+
+    private synchronized MarketView reload() {
+
+        Long version = readVersion();
+        MarketView current = view;
+
+        if (current != null && version != null && current.version() == version) {
+            return current;
+        }
+
+        List<CryptoMarketLite> liteList = redisService.valueGet(RedisKeys.CRYPTO_DATA_LITE, new TypeReference<List<CryptoMarketLite>>() {
+        });
+
+        if (liteList == null) {
+            return current;
+        }
+
+        Map<String, CryptoMarketData> fullById = new HashMap<>();
+        redisService.hashGetAll(Set.of(RedisKeys.CRYPTO_FULL_HASH))
+                .getOrDefault(RedisKeys.CRYPTO_FULL_HASH, Map.of())
+                .forEach((id, json) -> {
+                    try {
+                        fullById.put(id.toString(), objectMapper.readValue(json.toString(), CryptoMarketData.class));
+                    } catch (Exception e) {
+                        log.error("Failed to deserialize crypto {}", id, e);
+                    }
+                });
+
+        MarketTick tick = redisService.valueGet(RedisKeys.CRYPTO_DATA_TICK, new TypeReference<MarketTick>() {
+        });
+        if (tick == null) {
+            tick = new MarketTick(System.currentTimeMillis(), Map.of());
+        }
+
+        MarketView loaded = new MarketView(version != null ? version : -1, tick.fetchedAt(), liteList, fullById,
+                tick.volumes() != null ? tick.volumes() : Map.of());
+        swap(loaded);
+
+        log.info("Loaded market view version {} with {} cryptos", loaded.version(), liteList.size());
+        eventPublisher.publishEvent(new MarketViewLoadedEvent(loaded));
+        return loaded;
+    }
+
+    /**
+     * Every node records each view it swaps in, so the price history does not depend on which node ticks.
+     */
+    private void swap(MarketView newView) {
+
+        view = newView;
+        priceHistoryStore.append(newView);
+    }
+
+    private String toJson(MarketTick tick) {
+
+        try {
+            return objectMapper.writeValueAsString(tick);
+        } catch (Exception e) {
+            log.error("Failed to serialize the market tick", e);
+            return "null";
+        }
+    }
+
+    private Long readVersion() {
+        return redisService.valueGet(RedisKeys.CRYPTO_DATA_LITE_VERSION, new TypeReference<Long>() {
+        });
+    }
+
+    private static long hash(String json) {
+        return Hashing.murmur3_128().hashString(json, StandardCharsets.UTF_8).asLong();
+    }
+
+}
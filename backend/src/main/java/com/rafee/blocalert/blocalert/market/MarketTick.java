@@ -0,0 +1,10 @@
+package com.rafee.blocalert.blocalert.market;
+
+import java.util.Map;
+
+/**
+ * When the market view of a version was fetched and the 24h volumes that came with it, written next to the
+ * lite list so every node records the same points in its price history.
+ */
+public record MarketTick(long fetchedAt, Map<String, Double> volumes) {
+}
@@ -0,0 +1,27 @@
+package com.rafee.blocalert.blocalert.market;
+
+import com.rafee.blocalert.blocalert.DTO.internal.CryptoMarketData;
+import com.rafee.blocalert.blocalert.DTO.internal.CryptoMarketLite;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Immutable market data of one version of {@code crypto:data:lite:version}, shared by all readers of a node.
+ * The table sorts are built with the view, once per version.
+ */
+public record MarketView(long version, long fetchedAt, List<CryptoMarketLite> liteList,
+                         Map<String, CryptoMarketData> fullById, Map<String, Double> volumeById, CryptoTable table) {
+
+    public MarketView {
+        liteList = List.copyOf(liteList);
+        fullById = Map.copyOf(fullById);
+        volumeById = Map.copyOf(volumeById);
+    }
+
+    public MarketView(long version, long fetchedAt, List<CryptoMarketLite> liteList,
+                      Map<String, CryptoMarketData> fullById, Map<String, Double> volumeById) {
+        this(version, fetchedAt, liteList, fullById, volumeById, CryptoTable.of(liteList));
+    }
+
+}
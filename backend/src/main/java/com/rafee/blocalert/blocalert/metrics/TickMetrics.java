@@ -0,0 +1,88 @@
+package com.rafee.blocalert.blocalert.metrics;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+/**
+ * Timers of the market data tick, published as histograms so SLOs can be set on the percentiles:
+ * <ul>
+ *     <li>{@code tick.stage} per stage: fetch, redis_write, kafka_publish, alert_load, evaluation</li>
+ *     <li>{@code tick.duration} from the start of the fetch until the alert notifications are handed to Kafka</li>
+ *     <li>{@code alert.fanout} per channel, from the send until Kafka acknowledged the notifications</li>
+ *     <li>{@code tick.staleness.seconds} time since the last completed tick</li>
+ * </ul>
+ */
+@Component
+@RequiredArgsConstructor
+public class TickMetrics {
+
+    public static final String FETCH = "fetch";
+    public static final String REDIS_WRITE = "redis_write";
+    public static final String KAFKA_PUBLISH = "kafka_publish";
+    public static final String ALERT_LOAD = "alert_load";
+    public static final String EVALUATION = "evaluation";
+
+    private final MeterRegistry meterRegistry;
+
+    private final Map<String, Timer> stageTimers = new ConcurrentHashMap<>();
+    private final Map<String, Timer> fanOutTimers = new ConcurrentHashMap<>();
+
+    private volatile long lastTickMillis = System.currentTimeMillis();
+
+    @PostConstruct
+    void registerMetrics() {
+        Gauge.builder("tick.staleness.seconds", this, metrics -> (System.currentTimeMillis() - metrics.lastTickMillis) / 1000.0)
+                .description("Seconds since the last completed market data tick")
+                .register(meterRegistry);
+    }
+
+    public <T> T recordStage(String stage, Supplier<T> action) {
+        return stageTimers.computeIfAbsent(stage, this::stageTimer).record(action);
+    }
+
+    public void recordStage(String stage, Runnable action) {
+        stageTimers.computeIfAbsent(stage, this::stageTimer).record(action);
+    }
+
+    public void recordFanOut(String channel, long startNanos, int notifications) {
+
+        fanOutTimers.computeIfAbsent(channel, c -> Timer.builder("alert.fanout")
+                        .description("Time to publish the notifications of a tick to a channel topic")
+                        .tag("channel", c)
+                        .publishPercentileHistogram()
+                        .register(meterRegistry))
+                .record(System.nanoTime() - startNanos, TimeUnit.NANOSECONDS);
+
+        meterRegistry.counter("alert.fanout.notifications", "channel", channel).increment(notifications);
+    }
+
+    public void recordTick(long startNanos) {
+
+        Timer.builder("tick.duration")
+                .description("Time from the start of a market data fetch until its alerts are published")
+                .publishPercentileHistogram()
+                .register(meterRegistry)
+                .record(System.nanoTime() - startNanos, TimeUnit.NANOSECONDS);
+
+        lastTickMillis = System.currentTimeMillis();
+    }
+
+    private Timer stageTimer(String stage) {
+
+        return Timer.builder("tick.stage")
+                .description("Time spent in one stage of the market data tick")
+                .tag("stage", stage)
+                .publishPercentileHistogram()
+                .register(meterRegistry);
+    }
+
+}
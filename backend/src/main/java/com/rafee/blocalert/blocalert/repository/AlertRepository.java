@@ -1,11 +1,13 @@
 package com.rafee.blocalert.blocalert.repository;
 
+import com.rafee.blocalert.blocalert.DTO.internal.CachedAlert;
 import com.rafee.blocalert.blocalert.entity.Alert;
 import com.rafee.blocalert.blocalert.entity.enums.AlertCondition;
 import jakarta.transaction.Transactional;
 import jakarta.validation.constraints.DecimalMin;
 import jakarta.validation.constraints.NotBlank;
 import jakarta.validation.constraints.NotNull;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
@@ -35,6 +37,10 @@ public interface AlertRepository extends JpaRepository<Alert, Long> {
     @Query("SELECT COUNT(a) FROM Alert a WHERE a.user.id = ?1 AND a.isActive = true")
     int countActiveAlertsByUserId(Long id);
 
+    @Query("SELECT new com.rafee.blocalert.blocalert.DTO.internal.CachedAlert(a.id, a.user.id, a.cryptoId, a.thresholdValue, a.condition, a.notificationWebsocket, a.notificationEmail, a.notificationSms, a.updatedAt) " +
+            "FROM Alert a WHERE a.isActive = true AND a.id > ?1 ORDER BY a.id")
+    List<CachedAlert> getActiveCachedAlertsAfter(Long afterId, Limit limit);
+
     @Query("SELECT COUNT(a) > 0 FROM Alert a WHERE a.user.id = ?1 AND a.cryptoId = ?2 AND a.condition = ?3 AND a.thresholdValue = ?4 AND a.isActive = true")
     boolean existsByAlert(Long userId, String cryptoId, AlertCondition condition, BigDecimal thresholdValue);
 }
@@ -0,0 +1,143 @@
+package com.rafee.blocalert.blocalert.schedulers;
+
+import com.rafee.blocalert.blocalert.DTO.internal.CryptoMarketLite;
+import com.rafee.blocalert.blocalert.client.RequestBudgetInterceptor;
+import com.rafee.blocalert.blocalert.config.CoingeckoConfig;
+import com.rafee.blocalert.blocalert.config.SchedulerConfig;
+import com.rafee.blocalert.blocalert.engine.AlertMatchingEngine;
+import com.rafee.blocalert.blocalert.utils.ScaledPrice;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+
+import java.math.BigDecimal;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Interval of the market data tick, recomputed after every tick.
+ * <p>
+ * The urgency of a tick is the volatility over the volatility reference plus the alerts near the price
+ * over the near alert reference. Volatility is the 90th percentile of the per minute price moves of the
+ * coins, smoothed over ticks. The interval is the base interval divided by the urgency, so a normal
+ * market keeps the base, a quiet one stretches towards the maximum and a fast one shrinks towards the
+ * minimum. It never drops below what the CoinGecko budget allows once the chart and global calls all
+ * nodes made on the API key in the last minute are paid for.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class AdaptiveTickInterval {
+
+    private static final double SMOOTHING = 0.5;
+
+    private final SchedulerConfig schedulerConfig;
+    private final CoingeckoConfig coingeckoConfig;
+    private final RequestBudgetInterceptor coingeckoRequestBudget;
+    private final AlertMatchingEngine alertMatchingEngine;
+    private final MeterRegistry meterRegistry;
+
+    private Map<String, BigDecimal> lastPrices = Map.of();
+    private long lastTickMillis;
+
+    private volatile double volatilityPct;
+    private volatile int nearAlerts;
+    private volatile long intervalMs;
+
+    @PostConstruct
+    void init() {
+
+        intervalMs = schedulerConfig.getCryptoIntervalMs();
+
+        Gauge.builder("scheduler.crypto.interval.ms", this, interval -> interval.intervalMs)
+                .description("Current interval of the market data tick")
+                .register(meterRegistry);
+
+        Gauge.builder("scheduler.crypto.volatility", this, interval -> interval.volatilityPct)
+                .description("Smoothed 90th percentile of the per minute price moves, in percent")
+                .register(meterRegistry);
+
+        Gauge.builder("scheduler.crypto.near.alerts", this, interval -> interval.nearAlerts)
+                .description("Alerts within the near alert distance of the price at the last tick")
+                .register(meterRegistry);
+    }
+
+    public long currentIntervalMs() {
+        return schedulerConfig.isAdaptive() ? intervalMs : schedulerConfig.getCryptoIntervalMs();
+    }
+
+    public synchronized void recordTick(List<CryptoMarketLite> liteList) {
+
+        long now = System.currentTimeMillis();
+        double elapsedMinutes = lastTickMillis > 0 ? (now - lastTickMillis) / 60000.0 : 0;
+
+        Map<String, BigDecimal> prices = new HashMap<>(liteList.size());
+        double[] moves = new double[liteList.size()];
+        int moveCount = 0;
+        int near = 0;
+
+        for (CryptoMarketLite crypto : liteList) {
+
+            BigDecimal price = crypto.current_price();
+            if (price == null || price.signum() <= 0) continue;
+
+            prices.put(crypto.id(), price);
+            near += alertMatchingEngine.alertsNear(crypto.id(), ScaledPrice.toScaled(price), schedulerConfig.getNearAlertPct());
+
+            BigDecimal previous = lastPrices.get(crypto.id());
+            if (previous != null && elapsedMinutes > 0) {
+                double move = Math.abs(price.doubleValue() / previous.doubleValue() - 1) * 100;
+                moves[moveCount++] = move / elapsedMinutes;
+            }
+        }
+
+        if (moveCount > 0) {
+            Arrays.sort(moves, 0, moveCount);
+            double p90 = moves[(int) ((moveCount - 1) * 0.9)];
+            volatilityPct = volatilityPct == 0 ? p90 : SMOOTHING * p90 + (1 - SMOOTHING) * volatilityPct;
+        }
+
+        lastPrices = prices;
+        lastTickMillis = now;
+        nearAlerts = near;
+
+        long next = nextInterval();
+        if (next != intervalMs) {
+            log.info("Tick interval {}ms -> {}ms (volatility {}%/min, {} alerts near the price)",
+                    intervalMs, next, String.format("%.3f", volatilityPct), near);
+        }
+        intervalMs = next;
+    }
+
+    private long nextInterval() {
+
+        double urgency = volatilityPct / schedulerConfig.getVolatilityReferencePct()
+                + (double) nearAlerts / schedulerConfig.getNearAlertReference();
+
+        long interval = urgency > 0
+                ? (long) (schedulerConfig.getCryptoIntervalMs() / urgency)
+                : schedulerConfig.getMaxCryptoIntervalMs();
+
+        interval = Math.max(interval, budgetIntervalMs());
+
+        return Math.clamp(interval, schedulerConfig.getMinCryptoIntervalMs(), schedulerConfig.getMaxCryptoIntervalMs());
+    }
+
+    /**
+     * Shortest interval the shared request budget allows for the market pages, after the other calls of all nodes.
+     */
+    private long budgetIntervalMs() {
+
+        double available = coingeckoRequestBudget.getRequestsPerMinute() * schedulerConfig.getBudgetHeadroom()
+                - coingeckoRequestBudget.otherRequestsLastMinute();
+        double ticksPerMinute = available / Math.max(1, coingeckoConfig.getMarketPages());
+
+        return ticksPerMinute > 0 ? (long) (60000 / ticksPerMinute) : schedulerConfig.getMaxCryptoIntervalMs();
+    }
+
+}
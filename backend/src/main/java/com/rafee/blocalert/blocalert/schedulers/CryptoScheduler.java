@@ -1,29 +1,71 @@
 package com.rafee.blocalert.blocalert.schedulers;
 
+import com.rafee.blocalert.blocalert.config.SchedulerConfig;
 import com.rafee.blocalert.blocalert.service.CryptoService;
+import com.rafee.blocalert.blocalert.service.RedisService;
+import com.rafee.blocalert.blocalert.utils.RedisKeys;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Component;
+
+import java.time.Duration;
 import java.time.LocalDateTime;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 
+/**
+ * Runs the market data jobs on the scheduler leader. Each run is claimed with a Redis key that lives for the
+ * job interval, so a node that takes over continues the schedule of the previous leader instead of starting
+ * its own, and two nodes that briefly both see themselves as leader cannot run the same interval twice.
+ * Without leader election every node runs the jobs on its own schedule.
+ * The market data interval adapts to the market, see {@link AdaptiveTickInterval}.
+ */
 @Component
 @Slf4j
 @RequiredArgsConstructor
 public class CryptoScheduler {
 
     private final CryptoService cryptoService;
+    private final LeaderElection leaderElection;
+    private final RedisService redisService;
+    private final SchedulerConfig schedulerConfig;
+    private final AdaptiveTickInterval adaptiveTickInterval;
+
+    private final Map<String, Long> localLastRuns = new ConcurrentHashMap<>();
 
-    @Scheduled(fixedDelay = 65000, initialDelay = 10000)
+    @Scheduled(fixedDelayString = "${scheduler.check-ms:5000}", initialDelay = 10000)
     public void fetchCryptoData() {
+
+        if (!claimRun(RedisKeys.CRYPTO_TICK_CLAIM, adaptiveTickInterval.currentIntervalMs())) return;
+
         log.info("fetchCryptoData scheduler started at : {}", LocalDateTime.now());
         cryptoService.fetchAndCacheCryptoData();
     }
 
-    @Scheduled(fixedRate = 30 * 60 * 1000, initialDelay = 10000)
+    @Scheduled(fixedDelayString = "${scheduler.check-ms:5000}", initialDelay = 10000)
     public void fetchMarketStats() {
+
+        if (!claimRun(RedisKeys.MARKET_STATS_CLAIM, schedulerConfig.getMarketStatsIntervalMs())) return;
+
         log.info("fetchMarketStats scheduler started at : {}", LocalDateTime.now());
         cryptoService.fetchAndCacheMarketStats();
     }
 
+    private boolean claimRun(String claimKey, long intervalMs) {
+
+        long now = System.currentTimeMillis();
+
+        if (!schedulerConfig.isLeaderElection()) {
+            Long lastRun = localLastRuns.get(claimKey);
+            if (lastRun != null && now - lastRun < intervalMs) return false;
+            localLastRuns.put(claimKey, now);
+            return true;
+        }
+
+        if (!leaderElection.isLeader()) return false;
+
+        return redisService.valueSetIfAbsent(claimKey, String.valueOf(now), Duration.ofMillis(intervalMs));
+    }
+
 }
@@ -0,0 +1,144 @@
+package com.rafee.blocalert.blocalert.schedulers;
+
+import com.rafee.blocalert.blocalert.config.SchedulerConfig;
+import com.rafee.blocalert.blocalert.engine.CoinOwnership;
+import com.rafee.blocalert.blocalert.service.RedisService;
+import com.rafee.blocalert.blocalert.utils.RedisKeys;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+
+/**
+ * Picks the one node that polls CoinGecko, publishes the market data and evaluates alerts.
+ * <p>
+ * The leader holds the {@code scheduler:leader} lease and renews it well before it expires. Each
+ * acquisition increments {@code scheduler:leader:token}, and the tick writes are fenced on that token, so
+ * a leader that lost its lease while paused cannot overwrite the data of its successor. A standby takes
+ * the lease at most one lease plus one renew period after the leader stopped renewing.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class LeaderElection {
+
+    // KEYS lease, token  ARGV node, lease ms
+    private static final String ACQUIRE_SCRIPT = """
+            if redis.call('EXISTS', KEYS[1]) == 1 then return 0 end
+            local token = redis.call('INCR', KEYS[2])
+            redis.call('SET', KEYS[1], ARGV[1] .. '|' .. token, 'PX', ARGV[2])
+            return token
+            """;
+
+    // KEYS lease  ARGV node|token, lease ms
+    private static final String RENEW_SCRIPT = """
+            if redis.call('GET', KEYS[1]) ~= ARGV[1] then return 0 end
+            redis.call('PEXPIRE', KEYS[1], ARGV[2])
+            return 1
+            """;
+
+    // KEYS lease  ARGV node|token
+    private static final String RELEASE_SCRIPT = """
+            if redis.call('GET', KEYS[1]) ~= ARGV[1] then return 0 end
+            return redis.call('DEL', KEYS[1])
+            """;
+
+    private final RedisService redisService;
+    private final SchedulerConfig schedulerConfig;
+    private final CoinOwnership coinOwnership;
+    private final MeterRegistry meterRegistry;
+
+    private volatile long fencingToken;
+    private volatile long leaseValidUntil;
+
+    @PostConstruct
+    void init() {
+
+        Gauge.builder("scheduler.leader", this, election -> election.isLeader() ? 1 : 0)
+                .description("1 on the node that runs the market data tick")
+                .register(meterRegistry);
+
+        Gauge.builder("scheduler.leader.token", this, election -> election.fencingToken)
+                .description("Fencing token of the lease held by this node, 0 when standby")
+                .register(meterRegistry);
+
+        renew();
+    }
+
+    @Scheduled(fixedRateString = "${scheduler.lease-renew-ms:10000}")
+    public void renew() {
+
+        if (!schedulerConfig.isLeaderElection()) return;
+
+        String nodeId = coinOwnership.getNodeId();
+        String leaseMs = String.valueOf(schedulerConfig.getLeaseMs());
+        long renewStart = System.currentTimeMillis();
+
+        if (fencingToken > 0) {
+
+            Long renewed = redisService.scriptExecuteForLong(RENEW_SCRIPT, List.of(RedisKeys.SCHEDULER_LEADER),
+                    List.of(leaseValue(nodeId, fencingToken), leaseMs));
+
+            if (renewed != null && renewed == 1) {
+                leaseValidUntil = renewStart + schedulerConfig.getLeaseMs();
+            } else {
+                log.warn("Node {} lost the scheduler lease with token {}", nodeId, fencingToken);
+                fencingToken = 0;
+            }
+        }
+
+        if (fencingToken <= 0) {
+
+            Long token = redisService.scriptExecuteForLong(ACQUIRE_SCRIPT,
+                    List.of(RedisKeys.SCHEDULER_LEADER, RedisKeys.SCHEDULER_LEADER_TOKEN), List.of(nodeId, leaseMs));
+
+            if (token != null && token > 0) {
+                leaseValidUntil = renewStart + schedulerConfig.getLeaseMs();
+                fencingToken = token;
+                log.info("Node {} became scheduler leader with token {}", nodeId, token);
+
+                // any token after the first one means the lease was held before, only the new leader counts it
+                if (token > 1) {
+                    meterRegistry.counter("scheduler.leader.failovers").increment();
+                }
+            }
+        }
+    }
+
+    /**
+     * True while this node holds a lease that has not expired by its own clock.
+     */
+    public boolean isLeader() {
+
+        if (!schedulerConfig.isLeaderElection()) return true;
+        return fencingToken > 0 && System.currentTimeMillis() < leaseValidUntil;
+    }
+
+    /**
+     * Token to fence the tick writes with, 0 when leader election is off.
+     */
+    public long fencingToken() {
+        return schedulerConfig.isLeaderElection() ? fencingToken : 0;
+    }
+
+    @PreDestroy
+    void release() {
+
+        if (fencingToken <= 0) return;
+
+        redisService.scriptExecuteForLong(RELEASE_SCRIPT, List.of(RedisKeys.SCHEDULER_LEADER),
+                List.of(leaseValue(coinOwnership.getNodeId(), fencingToken)));
+        log.info("Node {} released the scheduler lease", coinOwnership.getNodeId());
+    }
+
+    private static String leaseValue(String nodeId, long token) {
+        return nodeId + "|" + token;
+    }
+
+}
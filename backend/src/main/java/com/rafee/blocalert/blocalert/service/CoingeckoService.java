@@ -1,14 +1,13 @@
 package com.rafee.blocalert.blocalert.service;
 
-import com.rafee.blocalert.blocalert.DTO.internal.CryptoMarketData;
+import com.rafee.blocalert.blocalert.DTO.internal.MarketSnapshot;
 import com.rafee.blocalert.blocalert.DTO.internal.MarketStatsData;
 
-import java.util.List;
 import java.util.Map;
 
 public interface CoingeckoService {
 
-    List<CryptoMarketData> fetchCryptoMarketData();
+    MarketSnapshot fetchCryptoMarketData(int page);
 
     MarketStatsData fetchMarketStats();
 
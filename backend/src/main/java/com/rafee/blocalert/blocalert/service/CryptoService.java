@@ -3,6 +3,8 @@ package com.rafee.blocalert.blocalert.service;
 import com.rafee.blocalert.blocalert.DTO.internal.CryptoMarketLite;
 import com.rafee.blocalert.blocalert.DTO.internal.CryptoMarketData;
 import com.rafee.blocalert.blocalert.DTO.internal.MarketStatsData;
+import com.rafee.blocalert.blocalert.DTO.response.CryptoResponse;
+import com.rafee.blocalert.blocalert.market.CryptoSort;
 import java.math.BigDecimal;
 import java.util.List;
 import java.util.Map;
@@ -18,9 +20,11 @@ public interface CryptoService {
 
     MarketStatsData getCachedMarketStats();
 
+    CryptoResponse getCryptoTable(int page, int size, CryptoSort sort);
+
     CryptoMarketData getCryptoMarketData(String cryptoId);
 
-    List<CryptoMarketLite> searchCrypto(String searchTerm);
+    List<CryptoMarketLite> searchCrypto(String searchTerm, int limit);
 
     Map<String, Object> getChartData(String id, String timeframe);
 
@@ -30,4 +34,6 @@ public interface CryptoService {
 
     Map<String, BigDecimal> getCryptoPrice(String cryptoId);
 
+    Map<String, BigDecimal> getCryptoPrices(Set<String> cryptoIds);
+
 }
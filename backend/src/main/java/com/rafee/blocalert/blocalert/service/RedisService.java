@@ -1,6 +1,9 @@
 package com.rafee.blocalert.blocalert.service;
 
 import com.fasterxml.jackson.core.type.TypeReference;
+import java.time.Duration;
+import java.util.Collection;
+import java.util.List;
 import java.util.Map;
 import java.util.Set;
 
@@ -11,14 +14,52 @@ public interface RedisService {
 
     <T> T valueGet(String key, TypeReference<T> tClass);
 
+    List<String> valueMultiGet(List<String> keys);
+
+    Long increment(String key);
+
+    void incrementAll(Collection<String> keys);
+
+    boolean valueSetIfAbsent(String key, String value, Duration ttl);
+
+    void delete(Collection<String> keys);
+
     void hashSet(String key, String field, Object value);
 
     <T> T hashGet(String key, String field, Class<T> tClass);
 
+    <T> Map<String, T> hashMultiGet(String key, Collection<String> fields, Class<T> tClass);
+
     void hashPutAll(String key, Map<String, String> valueMap);
 
     Map<String, Map<Object, Object>> hashGetAll(Set<String> keys);
 
+    void hashSetBytes(String key, String field, byte[] value);
+
+    Map<String, Map<String, byte[]>> hashGetAllBytes(Set<String> keys);
+
+    boolean hashPutAllBytes(Map<String, Map<String, byte[]>> valuesByKey);
+
+    void hashReplaceIfUnchanged(String key, Map<String, byte[]> expectedValues, Map<String, byte[]> newValues);
+
+    void sortedSetAdd(String key, String member, double score);
+
+    Set<String> sortedSetRangeByScore(String key, double min, double max);
+
+    void sortedSetRemoveRangeByScore(String key, double min, double max);
+
+    void sortedSetRemove(String key, String member);
+
+    void sortedSetAddAll(String key, Map<String, Double> scores);
+
+    void scriptExecute(String script, List<String> keys, List<String> args);
+
+    List<List<byte[]>> scriptExecuteAllForBytes(String script, int keyCount, List<List<String>> keysAndArgsPerCall);
+
+    Long scriptExecuteForLong(String script, List<String> keys, List<String> args);
+
+    void publish(String channel, String message);
+
     void hashDelField(String key, String field);
 
     void hashDelFields(String key, Object[] fields);
@@ -1,8 +1,8 @@
 package com.rafee.blocalert.blocalert.service.impl;
 
-import com.fasterxml.jackson.databind.ObjectMapper;
 import com.rafee.blocalert.blocalert.DTO.internal.AlertDeliveryResult;
 import com.rafee.blocalert.blocalert.DTO.internal.CachedAlert;
+import com.rafee.blocalert.blocalert.DTO.internal.IndexedAlert;
 import com.rafee.blocalert.blocalert.DTO.internal.CryptoMarketLite;
 import com.rafee.blocalert.blocalert.DTO.internal.CryptoMarketData;
 import com.rafee.blocalert.blocalert.DTO.request.AlertRequest;
@@ -10,15 +10,19 @@ import com.rafee.blocalert.blocalert.DTO.response.ActiveAlertResponse;
 import com.rafee.blocalert.blocalert.DTO.internal.UserAlertNotification;
 import com.rafee.blocalert.blocalert.DTO.response.PastAlertResponse;
 import com.rafee.blocalert.blocalert.config.AppConfig;
+import com.rafee.blocalert.blocalert.engine.AlertEvaluationExecutor;
+import com.rafee.blocalert.blocalert.engine.CoinOwnership;
+import com.rafee.blocalert.blocalert.engine.AlertMatchingEngine;
 import com.rafee.blocalert.blocalert.entity.Alert;
 import com.rafee.blocalert.blocalert.entity.User;
-import com.rafee.blocalert.blocalert.entity.enums.AlertCondition;
 import com.rafee.blocalert.blocalert.entity.enums.UserRole;
 import com.rafee.blocalert.blocalert.exception.AlertLimitExceedException;
 import com.rafee.blocalert.blocalert.exception.DuplicateAlertException;
 import com.rafee.blocalert.blocalert.exception.ResourceNotFoundException;
+import com.rafee.blocalert.blocalert.metrics.TickMetrics;
 import com.rafee.blocalert.blocalert.repository.AlertRepository;
 import com.rafee.blocalert.blocalert.service.*;
+import com.rafee.blocalert.blocalert.utils.CachedAlertCodec;
 import com.rafee.blocalert.blocalert.utils.RedisKeys;
 import jakarta.transaction.Transactional;
 import lombok.RequiredArgsConstructor;
@@ -30,8 +34,6 @@ import org.springframework.scheduling.annotation.Async;
 import org.springframework.stereotype.Service;
 import org.springframework.util.StringUtils;
 
-import java.math.BigDecimal;
-import java.math.RoundingMode;
 import java.nio.file.AccessDeniedException;
 import java.time.LocalDateTime;
 import java.util.*;
@@ -46,8 +48,11 @@ public class AlertServiceImpl implements AlertService {
     private final UserService userService;
     private final CryptoService cryptoService;
     private final RedisService redisService;
-    private final ObjectMapper objectMapper;
     private final AppConfig appConfig;
+    private final AlertMatchingEngine alertMatchingEngine;
+    private final AlertEvaluationExecutor alertEvaluationExecutor;
+    private final CoinOwnership coinOwnership;
+    private final TickMetrics tickMetrics;
 
     @Override
     public void addAlert(Long userId, AlertRequest request) {
@@ -83,10 +88,16 @@ public class AlertServiceImpl implements AlertService {
 
         checkAndThrowDuplicateAlert(userId, request);
 
+        String previousCryptoId = alert.getCryptoId();
+
         updateAlertFields(alert, request);
 
         alert = alertRepository.save(alert);
 
+        if (!previousCryptoId.equals(alert.getCryptoId())) {
+            uncacheAlert(previousCryptoId, alert.getId());
+        }
+
         cacheAlert(alert, userId);
 
     }
@@ -105,7 +116,7 @@ public class AlertServiceImpl implements AlertService {
 
         alertRepository.delete(alert);
 
-        redisService.hashDelField(RedisKeys.alertKey(alert.getCryptoId()), RedisKeys.alertId(alert.getId()));
+        uncacheAlert(alert.getCryptoId(), alert.getId());
     }
 
     @Override
@@ -137,22 +148,16 @@ public class AlertServiceImpl implements AlertService {
 
         log.info("evaluateAlerts called");
 
-        Set<String> cryptoIds = latestCrypto.stream()
-                .map(crypto -> RedisKeys.alertKey(crypto.id()))
-                .collect(Collectors.toSet());
+        List<CryptoMarketLite> ownedCrypto = latestCrypto.stream()
+                .filter(crypto -> coinOwnership.owns(crypto.id()))
+                .toList();
 
-        Map<String, Map<Object, Object>> redisCachedAlerts = redisService.hashGetAll(cryptoIds);
+        List<String> ownedIds = ownedCrypto.stream().map(CryptoMarketLite::id).toList();
 
-        return latestCrypto.stream()
-                .flatMap(crypto -> {
-                    Map<Object, Object> cachedAlerts = redisCachedAlerts.getOrDefault(RedisKeys.alertKey(crypto.id()), Collections.emptyMap());
-                    return cachedAlerts.values().stream()
-                            .map(value -> parseAlert((String) value))
-                            .filter(Objects::nonNull)
-                            .filter(alert -> shouldTriggerAlert(crypto, alert))
-                            .map(alert -> UserAlertNotification.fromAlert(alert, crypto));
-                })
-                .toList();
+        alertMatchingEngine.retainOnly(ownedIds);
+        tickMetrics.recordStage(TickMetrics.ALERT_LOAD, () -> alertMatchingEngine.refresh(ownedIds));
+
+        return tickMetrics.recordStage(TickMetrics.EVALUATION, () -> alertEvaluationExecutor.evaluate(ownedCrypto));
     }
 
     @Override
@@ -208,6 +213,7 @@ public class AlertServiceImpl implements AlertService {
                             .toArray();
 
                     redisService.hashDelFields(key, fields);
+                    alertMatchingEngine.onAlertsRemoved(cryptoId, alertIds);
                     log.debug("Removed {} alerts from crypto: {}", alertIds.size(), cryptoId);
 
                 } catch (Exception e) {
@@ -345,33 +351,6 @@ public class AlertServiceImpl implements AlertService {
         alert.setNotificationSms(request.getNotificationSms());
     }
 
-    private boolean shouldTriggerAlert(CryptoMarketLite crypto, CachedAlert alert) {
-
-        BigDecimal thresholdPrice = alert.getThresholdValue();
-        BigDecimal currentPrice = crypto.current_price();
-
-        int decimals = thresholdPrice.scale();
-        BigDecimal roundedCurrent = currentPrice.setScale(decimals, RoundingMode.DOWN);
-        BigDecimal roundedThreshold = thresholdPrice.setScale(decimals, RoundingMode.DOWN);
-
-        return switch (alert.getAlertCondition()) {
-
-            case AlertCondition.PRICE_ABOVE -> roundedCurrent.compareTo(roundedThreshold) > 0;
-            case AlertCondition.PRICE_BELOW -> roundedCurrent.compareTo(roundedThreshold) < 0;
-            case AlertCondition.PRICE_EQUALS -> roundedCurrent.compareTo(roundedThreshold) == 0;
-        };
-    }
-
-    private CachedAlert parseAlert(String alertJson) {
-
-        try {
-            return objectMapper.readValue(alertJson, CachedAlert.class);
-        } catch (Exception e) {
-            log.error("Error while parsing the cached alert {}", alertJson, e);
-            return null;
-        }
-    }
-
     private Map<String, CryptoMarketData> getAndValidateCryptoData(Set<String> cryptoIds) {
 
         Map<String, CryptoMarketData> cryptoDataMap = cryptoService.getMultipleCryptoData(cryptoIds);
@@ -390,9 +369,16 @@ public class AlertServiceImpl implements AlertService {
 
     private void cacheAlert(Alert alert, Long userId) {
 
-        CachedAlert cachedAlert = CachedAlert.from(alert, userId);
+        IndexedAlert indexedAlert = IndexedAlert.from(CachedAlert.from(alert, userId));
         // cache in redis
-        redisService.hashSet(RedisKeys.alertKey(alert.getCryptoId()), RedisKeys.alertId(alert.getId()), cachedAlert);
+        redisService.hashSetBytes(RedisKeys.alertKey(alert.getCryptoId()), RedisKeys.alertId(alert.getId()), CachedAlertCodec.encode(indexedAlert));
+        alertMatchingEngine.onAlertCached(alert.getCryptoId(), indexedAlert);
+    }
+
+    private void uncacheAlert(String cryptoId, Long alertId) {
+
+        redisService.hashDelField(RedisKeys.alertKey(cryptoId), RedisKeys.alertId(alertId));
+        alertMatchingEngine.onAlertsRemoved(cryptoId, List.of(alertId));
     }
 
 }
@@ -2,13 +2,17 @@ package com.rafee.blocalert.blocalert.service.impl;
 
 import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
-import com.rafee.blocalert.blocalert.DTO.internal.CryptoMarketData;
+import com.rafee.blocalert.blocalert.DTO.internal.MarketSnapshot;
 import com.rafee.blocalert.blocalert.DTO.internal.MarketStatsData;
+import com.rafee.blocalert.blocalert.client.MarketsResponseParser;
+import com.rafee.blocalert.blocalert.config.CoingeckoConfig;
 import com.rafee.blocalert.blocalert.exception.ExternalApiException;
+import com.rafee.blocalert.blocalert.exception.RequestBudgetExceededException;
 import com.rafee.blocalert.blocalert.service.CoingeckoService;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
-import org.springframework.beans.factory.annotation.Value;
 import org.springframework.http.ResponseEntity;
 import org.springframework.retry.annotation.Backoff;
 import org.springframework.retry.annotation.Retryable;
@@ -18,9 +22,6 @@ import org.springframework.web.client.RestClient;
 import org.springframework.web.client.RestClientResponseException;
 import org.springframework.web.util.UriComponentsBuilder;
 
-import java.util.Arrays;
-import java.util.Collections;
-import java.util.List;
 import java.util.Map;
 
 @Service
@@ -28,53 +29,56 @@ import java.util.Map;
 @Slf4j
 public class CoingeckoServiceImpl implements CoingeckoService {
 
-    @Value("${coingecko.url}")
-    private String baseUrl;
-
-    @Value("${coingecko.secret}")
-    private String apiKey;
-
     private final ObjectMapper objectMapper;
+    private final RestClient coingeckoRestClient;
+    private final CoingeckoConfig coingeckoConfig;
+    private final MeterRegistry meterRegistry;
 
     @Retryable(
             value = {ExternalApiException.class},
+            noRetryFor = {RequestBudgetExceededException.class},
             maxAttempts = 3,
             backoff = @Backoff(delay = 2000)
     )
     @Override
-    public List<CryptoMarketData> fetchCryptoMarketData() {
+    public MarketSnapshot fetchCryptoMarketData(int page) {
 
-        log.info("fetchCryptoMarketData called");
+        log.info("fetchCryptoMarketData called for page {}", page);
 
-        String url = UriComponentsBuilder.fromUriString(baseUrl)
+        String url = UriComponentsBuilder.fromUriString(coingeckoConfig.getUrl())
                 .path("/coins/markets")
                 .queryParam("vs_currency", "usd")
                 .queryParam("order", "market_cap_desc")
-                .queryParam("per_page", 250)
-                .queryParam("page", 1)
+                .queryParam("per_page", coingeckoConfig.getMarketPageSize())
+                .queryParam("page", page)
                 .queryParam("sparkline", false)
                 .toUriString();
 
-        RestClient client = initializeRestClient();
+        Timer.Sample sample = Timer.start(meterRegistry);
 
         try {
-            ResponseEntity<CryptoMarketData[]> response = client.get()
+            MarketSnapshot snapshot = coingeckoRestClient.get()
                     .uri(url)
-                    .retrieve()
-                    .toEntity(CryptoMarketData[].class);
+                    .exchange((request, response) -> {
 
-            if (!response.getStatusCode().is2xxSuccessful()) {
-                log.error("Coingecko API  for fetchCryptoMarketData returned non-success status: {}", response.getStatusCode());
-                throw new ExternalApiException("Coingecko returned non-success status: " + response.getStatusCode());
-            }
+                        if (!response.getStatusCode().is2xxSuccessful()) {
+                            log.error("Coingecko API  for fetchCryptoMarketData returned non-success status: {}", response.getStatusCode());
+                            throw new ExternalApiException("Coingecko returned non-success status: " + response.getStatusCode());
+                        }
+
+                        return MarketsResponseParser.parse(response.getBody(), objectMapper.getFactory());
+                    });
 
-            if (response.getBody() == null || response.getBody().length == 0) {
+            if (snapshot == null || snapshot.isEmpty()) {
                 log.warn("No crypto data returned from Coingecko (URL: {})", url);
-                return Collections.emptyList();
+                return MarketSnapshot.empty();
             }
 
-            log.info("Fetched {} cryptos from Coingecko", response.getBody().length);
-            return Arrays.asList(response.getBody());
+            log.info("Fetched {} cryptos from Coingecko page {}", snapshot.liteList().size(), page);
+            return snapshot;
+
+        } catch (ExternalApiException e) {
+            throw e;
 
         } catch (RestClientResponseException e) {
 
@@ -84,26 +88,29 @@ public class CoingeckoServiceImpl implements CoingeckoService {
         } catch (Exception e) {
             log.error("Unexpected error while fetching crypto data from Coingecko", e);
             throw new ExternalApiException("Unexpected error while fetching crypto data");
+        } finally {
+            recordLatency(sample, "markets");
         }
     }
 
 
     @Retryable(
             value = {ExternalApiException.class},
+            noRetryFor = {RequestBudgetExceededException.class},
             maxAttempts = 3,
             backoff = @Backoff(delay = 2000)
     )
     @Override
     public MarketStatsData fetchMarketStats() {
 
-        String url = UriComponentsBuilder.fromUriString(baseUrl)
+        String url = UriComponentsBuilder.fromUriString(coingeckoConfig.getUrl())
                 .path("/global")
                 .toUriString();
 
-        RestClient client = initializeRestClient();
+        Timer.Sample sample = Timer.start(meterRegistry);
 
         try {
-            ResponseEntity<String> response = client.get()
+            ResponseEntity<String> response = coingeckoRestClient.get()
                     .uri(url)
                     .retrieve()
                     .toEntity(String.class);
@@ -124,6 +131,9 @@ public class CoingeckoServiceImpl implements CoingeckoService {
 
             return MarketStatsData.from(marketDataNode);
 
+        } catch (ExternalApiException e) {
+            throw e;
+
         } catch (RestClientResponseException e) {
 
             log.error("Coingecko API for fetchMarketStats returned error {}: {}", e.getStatusCode(), e.getResponseBodyAsString());
@@ -132,11 +142,14 @@ public class CoingeckoServiceImpl implements CoingeckoService {
         } catch (Exception e) {
             log.error("Unexpected error while fetching market data from Coingecko", e);
             throw new ExternalApiException("Unexpected error while fetching market data");
+        } finally {
+            recordLatency(sample, "global");
         }
     }
 
     @Retryable(
             value = {ExternalApiException.class},
+            noRetryFor = {RequestBudgetExceededException.class},
             maxAttempts = 3,
             backoff = @Backoff(delay = 2000)
     )
@@ -145,16 +158,16 @@ public class CoingeckoServiceImpl implements CoingeckoService {
 
         log.info("getCryptoChartData called for {} - {}", cryptoId, timeframe);
 
-        String url = UriComponentsBuilder.fromUriString(baseUrl)
+        String url = UriComponentsBuilder.fromUriString(coingeckoConfig.getUrl())
                 .pathSegment("coins", cryptoId, "market_chart")
                 .queryParam("vs_currency", "usd")
                 .queryParam("days", timeframe)
                 .toUriString();
 
-        RestClient client = initializeRestClient();
+        Timer.Sample sample = Timer.start(meterRegistry);
 
         try {
-            ResponseEntity<Map> response = client.get()
+            ResponseEntity<Map> response = coingeckoRestClient.get()
                     .uri(url)
                     .retrieve()
                     .toEntity(Map.class);
@@ -173,6 +186,9 @@ public class CoingeckoServiceImpl implements CoingeckoService {
 
             return response.getBody();
 
+        } catch (ExternalApiException e) {
+            throw e;
+
         } catch (RestClientResponseException e) {
 
             log.error("Coingecko API for getCryptoChartData returned error {}: {}", e.getStatusCode(), e.getResponseBodyAsString());
@@ -181,15 +197,18 @@ public class CoingeckoServiceImpl implements CoingeckoService {
         } catch (Exception e) {
             log.error("Unexpected error while fetching market data from Coingecko", e);
             throw new ExternalApiException("Unexpected error while fetching market data");
+        } finally {
+            recordLatency(sample, "market_chart");
         }
     }
 
-    RestClient initializeRestClient() {
+    private void recordLatency(Timer.Sample sample, String endpoint) {
 
-        return RestClient.builder()
-                .defaultHeader("Accept", "application/json")
-                .defaultHeader("x-cg-demo-api-key", apiKey)
-                .build();
+        sample.stop(Timer.builder("coingecko.request")
+                .description("Latency of Coingecko API calls")
+                .tag("endpoint", endpoint)
+                .publishPercentileHistogram()
+                .register(meterRegistry));
     }
 
 }
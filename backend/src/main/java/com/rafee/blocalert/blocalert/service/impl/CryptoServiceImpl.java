@@ -1,13 +1,23 @@
 package com.rafee.blocalert.blocalert.service.impl;
 
 import com.fasterxml.jackson.core.type.TypeReference;
-import com.fasterxml.jackson.databind.ObjectMapper;
 import com.rafee.blocalert.blocalert.DTO.internal.CryptoMarketLite;
 import com.rafee.blocalert.blocalert.DTO.internal.CryptoMarketData;
+import com.rafee.blocalert.blocalert.DTO.internal.MarketSnapshot;
 import com.rafee.blocalert.blocalert.DTO.internal.MarketStatsData;
+import com.rafee.blocalert.blocalert.DTO.response.CryptoResponse;
+import com.rafee.blocalert.blocalert.client.ChartDataCache;
+import com.rafee.blocalert.blocalert.client.MarketPageFetcher;
 import com.rafee.blocalert.blocalert.events.event.SendAlertEvent;
 import com.rafee.blocalert.blocalert.events.publisher.AlertNotificationPublisher;
 import com.rafee.blocalert.blocalert.exception.ResourceNotFoundException;
+import com.rafee.blocalert.blocalert.market.CryptoSearchIndex;
+import com.rafee.blocalert.blocalert.market.CryptoSort;
+import com.rafee.blocalert.blocalert.market.MarketSnapshotStore;
+import com.rafee.blocalert.blocalert.market.MarketView;
+import com.rafee.blocalert.blocalert.metrics.TickMetrics;
+import com.rafee.blocalert.blocalert.schedulers.AdaptiveTickInterval;
+import com.rafee.blocalert.blocalert.schedulers.LeaderElection;
 import com.rafee.blocalert.blocalert.events.event.CryptoTableBroadcastEvent;
 import com.rafee.blocalert.blocalert.events.event.CryptoDetailBroadcastEvent;
 import com.rafee.blocalert.blocalert.events.event.MarketStatsBroadcastEvent;
@@ -15,6 +25,7 @@ import com.rafee.blocalert.blocalert.events.publisher.MarketDataPublisher;
 import com.rafee.blocalert.blocalert.service.CoingeckoService;
 import com.rafee.blocalert.blocalert.service.CryptoService;
 import com.rafee.blocalert.blocalert.service.RedisService;
+import com.rafee.blocalert.blocalert.timeseries.PriceHistoryStore;
 import com.rafee.blocalert.blocalert.utils.RedisKeys;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
@@ -22,46 +33,66 @@ import org.springframework.stereotype.Service;
 import org.springframework.util.StringUtils;
 
 import java.math.BigDecimal;
+import java.time.Duration;
 import java.util.*;
-import java.util.function.Function;
-import java.util.stream.Collectors;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
 
 @Service
 @Slf4j
 @RequiredArgsConstructor
 public class CryptoServiceImpl implements CryptoService {
 
-    private final ObjectMapper objectMapper;
     private final RedisService redisService;
     private final CoingeckoService coingeckoService;
+    private final MarketPageFetcher marketPageFetcher;
+    private final MarketSnapshotStore marketSnapshotStore;
+    private final ChartDataCache chartDataCache;
     private final MarketDataPublisher marketDataPublisher;
     private final AlertNotificationPublisher alertNotificationPublisher;
+    private final TickMetrics tickMetrics;
+    private final LeaderElection leaderElection;
+    private final AdaptiveTickInterval adaptiveTickInterval;
+    private final PriceHistoryStore priceHistoryStore;
+    private final CryptoSearchIndex cryptoSearchIndex;
+
+    private static final Duration MISS_WAIT = Duration.ofSeconds(5);
+    private static final Duration MISS_POLL = Duration.ofMillis(200);
+    private static final Duration MISS_LOCK_TTL = Duration.ofSeconds(60);
+
+    private final Map<String, CompletableFuture<Void>> missRefreshes = new ConcurrentHashMap<>();
+    private volatile MarketStatsData lastKnownMarketStats;
 
     @Override
     public void fetchAndCacheCryptoData() {
 
         log.info("fetchAndCacheCryptoData called");
 
-        List<CryptoMarketData> fullList = coingeckoService.fetchCryptoMarketData();
-        List<CryptoMarketLite> liteList = mapToLiteData(fullList);
+        long tickStart = System.nanoTime();
 
-        redisService.hashPutAll(RedisKeys.CRYPTO_FULL_HASH, serializeHashData(fullList));
-        redisService.valueSet(RedisKeys.CRYPTO_DATA_LITE, liteList);
+        long fencingToken = leaderElection.fencingToken();
 
-        marketDataPublisher.publishCryptoTableBroadcast(new CryptoTableBroadcastEvent(liteList));
-        marketDataPublisher.publishCryptoDetailBroadcast(buildCryptoBroadcastEvent(fullList));
-        alertNotificationPublisher.publishAlertNotifications(new SendAlertEvent(liteList));
+        MarketSnapshot snapshot = tickMetrics.recordStage(TickMetrics.FETCH, marketPageFetcher::fetchAll);
+        List<CryptoMarketLite> liteList = snapshot.liteList();
 
-        log.info("Cached {} cryptos and published events", liteList.size());
-    }
+        boolean written = tickMetrics.recordStage(TickMetrics.REDIS_WRITE, () -> marketSnapshotStore.write(snapshot, fencingToken));
 
-    private CryptoDetailBroadcastEvent buildCryptoBroadcastEvent(List<CryptoMarketData> fullList) {
+        if (!written) {
+            log.warn("Scheduler token {} was superseded by a newer leader, dropping this tick", fencingToken);
+            return;
+        }
 
-        Map<String, CryptoMarketData> cryptoMarketDataMap = fullList
-                .stream()
-                .collect(Collectors.toMap(CryptoMarketData::id, Function.identity()));
+        tickMetrics.recordStage(TickMetrics.KAFKA_PUBLISH, () -> {
+            marketDataPublisher.publishCryptoTableBroadcast(new CryptoTableBroadcastEvent(liteList));
+            marketDataPublisher.publishCryptoDetailBroadcast(new CryptoDetailBroadcastEvent(snapshot.fullById()));
+        });
+
+        alertNotificationPublisher.publishAlertNotifications(new SendAlertEvent(liteList));
+        tickMetrics.recordTick(tickStart);
+        adaptiveTickInterval.recordTick(liteList);
 
-        return new CryptoDetailBroadcastEvent(cryptoMarketDataMap);
+        log.info("Cached {} cryptos and published events", liteList.size());
     }
 
     @Override
@@ -71,6 +102,7 @@ public class CryptoServiceImpl implements CryptoService {
 
         MarketStatsData marketStats = coingeckoService.fetchMarketStats();
         redisService.valueSet(RedisKeys.MARKET_STATS, marketStats);
+        lastKnownMarketStats = marketStats;
 
         marketDataPublisher.publishMarketBroadcast(new MarketStatsBroadcastEvent(marketStats));
 
@@ -82,56 +114,161 @@ public class CryptoServiceImpl implements CryptoService {
 
         log.info("getCachedCryptoData called");
 
-        List<CryptoMarketLite> cachedCryptoList = redisService.valueGet(RedisKeys.CRYPTO_DATA_LITE, new TypeReference<List<CryptoMarketLite>>() {
-        });
+        return currentView().liteList();
+    }
+
+    @Override
+    public CryptoResponse getCryptoTable(int page, int size, CryptoSort sort) {
+
+        log.info("getCryptoTable called for page {} size {} sort {}", page, size, sort);
+
+        return currentView().table().page(sort, page, size);
+    }
 
-        if (cachedCryptoList != null) {
-            return cachedCryptoList;
+    private MarketView currentView() {
+
+        MarketView marketView = marketSnapshotStore.view();
+
+        if (marketView != null) {
+            return marketView;
         }
 
-        log.warn("CryptoMarketLite is null in redis - refetching");
-        fetchAndCacheCryptoData();
-        cachedCryptoList = redisService.valueGet(RedisKeys.CRYPTO_DATA_LITE, new TypeReference<List<CryptoMarketLite>>() {
-        });
+        log.warn("CryptoMarketLite is null in redis - refreshing");
+        marketView = refreshOnMiss(RedisKeys.CRYPTO_DATA_REFRESH_LOCK,
+                () -> marketSnapshotStore.write(marketPageFetcher.fetchAll(), 0), marketSnapshotStore::view);
 
-        if (cachedCryptoList == null) {
-            throw new ResourceNotFoundException("CryptoMarketLite not found");
+        if (marketView != null) {
+            return marketView;
         }
 
-        return cachedCryptoList;
+        throw new ResourceNotFoundException("CryptoMarketLite not found");
     }
 
     @Override
     public MarketStatsData getCachedMarketStats() {
 
-        MarketStatsData cachedMarketStats = redisService.valueGet(RedisKeys.MARKET_STATS, new TypeReference<MarketStatsData>() {
-        });
+        MarketStatsData cachedMarketStats = readCachedMarketStats();
 
         if (cachedMarketStats != null) {
+            lastKnownMarketStats = cachedMarketStats;
             return cachedMarketStats;
         }
 
-        log.warn("MarketStatsData is null in redis - refetching");
-        fetchAndCacheMarketStats();
-        cachedMarketStats = redisService.valueGet(RedisKeys.MARKET_STATS, new TypeReference<MarketStatsData>() {
+        log.warn("MarketStatsData is null in redis - refreshing");
+        cachedMarketStats = refreshOnMiss(RedisKeys.MARKET_STATS_REFRESH_LOCK, () -> {
+            MarketStatsData marketStats = coingeckoService.fetchMarketStats();
+            redisService.valueSet(RedisKeys.MARKET_STATS, marketStats);
+            lastKnownMarketStats = marketStats;
+        }, this::readCachedMarketStats);
+
+        if (cachedMarketStats != null) {
+            return cachedMarketStats;
+        }
+
+        if (lastKnownMarketStats != null) {
+            log.warn("Serving last known MarketStatsData while redis is refilled");
+            return lastKnownMarketStats;
+        }
+
+        throw new ResourceNotFoundException("MarketStatsData not found");
+    }
+
+    private MarketStatsData readCachedMarketStats() {
+        return redisService.valueGet(RedisKeys.MARKET_STATS, new TypeReference<MarketStatsData>() {
         });
+    }
+
+    /**
+     * Refills a missing cache entry once across the cluster. Callers on this node share one attempt, the node
+     * that gets the Redis lock refetches and writes the value, without publishing or evaluating alerts, and
+     * everyone else polls Redis until the value shows up or the wait runs out.
+     */
+    private <T> T refreshOnMiss(String lockKey, Runnable refresh, Supplier<T> read) {
+
+        long deadline = System.nanoTime() + MISS_WAIT.toNanos();
 
-        if (cachedMarketStats == null) {
-            throw new ResourceNotFoundException("MarketStatsData not found");
+        CompletableFuture<Void> created = new CompletableFuture<>();
+        CompletableFuture<Void> running = missRefreshes.putIfAbsent(lockKey, created);
+
+        if (running == null) {
+            try {
+                if (redisService.valueSetIfAbsent(lockKey, "1", MISS_LOCK_TTL)) {
+                    try {
+                        refresh.run();
+                    } finally {
+                        redisService.delete(List.of(lockKey));
+                    }
+                }
+            } catch (Exception e) {
+                log.error("Cache refresh for {} failed", lockKey, e);
+            } finally {
+                missRefreshes.remove(lockKey, created);
+                created.complete(null);
+            }
         }
 
-        return cachedMarketStats;
+        try {
+            T value = read.get();
+            while (value == null && System.nanoTime() < deadline) {
+                Thread.sleep(MISS_POLL.toMillis());
+                value = read.get();
+            }
+            return value;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return null;
+        }
     }
 
     @Override
     public CryptoMarketData getCryptoMarketData(String cryptoId) {
 
-        return redisService.hashGet(RedisKeys.CRYPTO_FULL_HASH, cryptoId, CryptoMarketData.class);
+        return findCryptoData(cryptoId);
 
     }
 
+    /**
+     * From the market view, the coins outside the current view are read from Redis with a single HMGET.
+     */
+    private Map<String, CryptoMarketData> findCryptoData(Set<String> cryptoIds) {
+
+        MarketView marketView = marketSnapshotStore.view();
+        Map<String, CryptoMarketData> cryptoDataMap = new HashMap<>();
+        List<String> missingIds = new ArrayList<>();
+
+        for (String id : cryptoIds) {
+            CryptoMarketData cryptoData = marketView != null ? marketView.fullById().get(id) : null;
+            if (cryptoData != null) {
+                cryptoDataMap.put(id, cryptoData);
+            } else {
+                missingIds.add(id);
+            }
+        }
+
+        if (!missingIds.isEmpty()) {
+            cryptoDataMap.putAll(redisService.hashMultiGet(RedisKeys.CRYPTO_FULL_HASH, missingIds, CryptoMarketData.class));
+        }
+
+        return cryptoDataMap;
+    }
+
+    /**
+     * From the market view, coins outside the current view are still looked up in Redis.
+     */
+    private CryptoMarketData findCryptoData(String cryptoId) {
+
+        MarketView marketView = marketSnapshotStore.view();
+        CryptoMarketData cryptoData = marketView != null ? marketView.fullById().get(cryptoId) : null;
+
+        if (cryptoData != null) {
+            return cryptoData;
+        }
+
+        return redisService.hashGet(RedisKeys.CRYPTO_FULL_HASH, cryptoId, CryptoMarketData.class);
+    }
+
     @Override
-    public List<CryptoMarketLite> searchCrypto(String searchTermRaw) {
+    public List<CryptoMarketLite> searchCrypto(String searchTermRaw, int limit) {
 
         log.info("searchCrypto called with term: {}", searchTermRaw);
 
@@ -139,17 +276,7 @@ public class CryptoServiceImpl implements CryptoService {
             return Collections.emptyList();
         }
 
-        String searchTerm = searchTermRaw.toLowerCase();
-
-        return getCachedCryptoData()
-                .stream()
-                .filter(crypto -> {
-                    String name = crypto.name();
-                    String symbol = crypto.symbol();
-                    return (name != null && name.toLowerCase().contains(searchTerm)) ||
-                            (symbol != null && symbol.toLowerCase().contains(searchTerm));
-                })
-                .toList();
+        return cryptoSearchIndex.search(currentView(), searchTermRaw, limit);
     }
 
     @Override
@@ -157,7 +284,14 @@ public class CryptoServiceImpl implements CryptoService {
 
         log.info("getChartData called for {}", timeframe);
 
-        return coingeckoService.getCryptoChartData(cryptoId, getDays(timeframe));
+        String days = getDays(timeframe);
+
+        Map<String, Object> localChart = priceHistoryStore.chart(cryptoId, days);
+        if (localChart != null) {
+            return localChart;
+        }
+
+        return chartDataCache.get(cryptoId, days);
     }
 
     @Override
@@ -169,7 +303,7 @@ public class CryptoServiceImpl implements CryptoService {
             throw new IllegalArgumentException("CryptoId is Invalid");
         }
 
-        return redisService.hashGet(RedisKeys.CRYPTO_FULL_HASH, cryptoId, CryptoMarketData.class);
+        return findCryptoData(cryptoId);
     }
 
     @Override
@@ -177,12 +311,7 @@ public class CryptoServiceImpl implements CryptoService {
 
         log.info("getMultipleCryptoData called for total ids {}", cryptoIds.size());
 
-        Map<String, CryptoMarketData> cryptoDataMap = new HashMap<>();
-
-        for (String id : cryptoIds) {
-            CryptoMarketData cryptoMarketData = redisService.hashGet(RedisKeys.CRYPTO_FULL_HASH, id, CryptoMarketData.class);
-            cryptoDataMap.put(cryptoMarketData.id(), cryptoMarketData);
-        }
+        Map<String, CryptoMarketData> cryptoDataMap = findCryptoData(cryptoIds);
 
         if (cryptoDataMap.isEmpty()) {
             throw new ResourceNotFoundException("Crypto data map by Ids is empty");
@@ -193,43 +322,26 @@ public class CryptoServiceImpl implements CryptoService {
     }
 
     @Override
-    public Map<String, BigDecimal> getCryptoPrice(String cryptoId) {
-
-        CryptoMarketData cryptoData = getCryptoData(cryptoId);
-        return Map.of("price", cryptoData.current_price());
-    }
+    public Map<String, BigDecimal> getCryptoPrices(Set<String> cryptoIds) {
 
+        log.info("getCryptoPrices called for total ids {}", cryptoIds.size());
 
-    private List<CryptoMarketLite> mapToLiteData(List<CryptoMarketData> cryptoList) {
+        Map<String, CryptoMarketData> cryptoDataMap = findCryptoData(cryptoIds);
+        Map<String, BigDecimal> prices = new LinkedHashMap<>();
 
-        return cryptoList.stream().map(c -> new CryptoMarketLite(
-                c.id(),
-                c.symbol(),
-                c.name(),
-                c.image(),
-                c.current_price(),
-                c.market_cap(),
-                c.market_cap_rank(),
-                c.circulating_supply(),
-                c.price_change_percentage_24h()
-        )).toList();
+        cryptoIds.forEach(id -> {
+            CryptoMarketData cryptoData = cryptoDataMap.get(id);
+            if (cryptoData != null) prices.put(id, cryptoData.current_price());
+        });
 
+        return prices;
     }
 
-    public Map<String, String> serializeHashData(List<CryptoMarketData> cryptoMarketData) {
-
-        Map<String, String> cryptoMap = new HashMap<>();
-
-        for (CryptoMarketData crypto : cryptoMarketData) {
-
-            try {
-                cryptoMap.put(crypto.id(), objectMapper.writeValueAsString(crypto));
-            } catch (Exception e) {
-                log.error("Failed to serialize crypto : {}", crypto.id(), e);
-            }
-        }
+    @Override
+    public Map<String, BigDecimal> getCryptoPrice(String cryptoId) {
 
-        return cryptoMap;
+        CryptoMarketData cryptoData = getCryptoData(cryptoId);
+        return Map.of("price", cryptoData.current_price());
     }
 
 
@@ -5,8 +5,13 @@ import com.fasterxml.jackson.databind.ObjectMapper;
 import com.rafee.blocalert.blocalert.service.RedisService;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.redis.connection.RedisPipelineException;
+import org.springframework.data.redis.connection.ReturnType;
 import org.springframework.data.redis.core.*;
 import org.springframework.stereotype.Service;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
 import java.util.*;
 
 @Service
@@ -17,6 +22,17 @@ public class RedisServiceImpl implements RedisService {
     private final ObjectMapper objectMapper;
     private final StringRedisTemplate redisTemplate;
 
+    private static final byte[] REPLACE_IF_UNCHANGED_SCRIPT = """
+            local replaced = 0
+            for i = 1, #ARGV, 3 do
+                if redis.call('HGET', KEYS[1], ARGV[i]) == ARGV[i + 1] then
+                    redis.call('HSET', KEYS[1], ARGV[i], ARGV[i + 2])
+                    replaced = replaced + 1
+                end
+            end
+            return replaced
+            """.getBytes(StandardCharsets.UTF_8);
+
     @Override
     public void valueSet(String key, Object value) {
         try {
@@ -43,6 +59,65 @@ public class RedisServiceImpl implements RedisService {
         }
     }
 
+    @Override
+    public List<String> valueMultiGet(List<String> keys) {
+
+        try {
+
+            List<String> values = redisTemplate.opsForValue().multiGet(keys);
+            return values != null ? values : Collections.emptyList();
+
+        } catch (Exception e) {
+            log.error("Failed to get multiple values", e);
+            return Collections.emptyList();
+        }
+    }
+
+    @Override
+    public Long increment(String key) {
+
+        try {
+            return redisTemplate.opsForValue().increment(key);
+        } catch (Exception e) {
+            log.error("Failed to increment key {}", key, e);
+            return null;
+        }
+    }
+
+    @Override
+    public void incrementAll(Collection<String> keys) {
+
+        try {
+            redisTemplate.executePipelined((RedisCallback<Object>) connection -> {
+                keys.forEach(key -> connection.stringCommands().incr(key.getBytes(StandardCharsets.UTF_8)));
+                return null;
+            });
+        } catch (Exception e) {
+            log.error("Failed to increment {} keys", keys.size(), e);
+        }
+    }
+
+    @Override
+    public boolean valueSetIfAbsent(String key, String value, Duration ttl) {
+
+        try {
+            return Boolean.TRUE.equals(redisTemplate.opsForValue().setIfAbsent(key, value, ttl));
+        } catch (Exception e) {
+            log.error("Failed to set value if absent for key {}", key, e);
+            return false;
+        }
+    }
+
+    @Override
+    public void delete(Collection<String> keys) {
+
+        try {
+            redisTemplate.delete(keys);
+        } catch (Exception e) {
+            log.error("Failed to delete {} keys", keys.size(), e);
+        }
+    }
+
     @Override
     public void hashSet(String key, String field, Object value) {
 
@@ -71,6 +146,30 @@ public class RedisServiceImpl implements RedisService {
         }
     }
 
+    @Override
+    public <T> Map<String, T> hashMultiGet(String key, Collection<String> fields, Class<T> tClass) {
+
+        Map<String, T> values = new LinkedHashMap<>();
+
+        try {
+
+            List<String> fieldList = new ArrayList<>(fields);
+            List<Object> jsonValues = redisTemplate.opsForHash().multiGet(key, new ArrayList<>(fieldList));
+
+            for (int i = 0; i < fieldList.size(); i++) {
+                Object json = jsonValues.get(i);
+                if (json != null) {
+                    values.put(fieldList.get(i), objectMapper.readValue(json.toString(), tClass));
+                }
+            }
+
+        } catch (Exception e) {
+            log.error("Failed to get {} fields of hash {}", fields.size(), key, e);
+        }
+
+        return values;
+    }
+
     @Override
     public void hashPutAll(String key, Map<String, String> valueMap) {
         try {
@@ -115,6 +214,245 @@ public class RedisServiceImpl implements RedisService {
         return resultsMap;
     }
 
+    @Override
+    public void hashSetBytes(String key, String field, byte[] value) {
+
+        try {
+            redisTemplate.execute((RedisCallback<Boolean>) connection ->
+                    connection.hashCommands().hSet(key.getBytes(StandardCharsets.UTF_8), field.getBytes(StandardCharsets.UTF_8), value));
+        } catch (Exception e) {
+            log.error("Failed to set binary hash value for key {}, field {}", key, field, e);
+        }
+    }
+
+    @Override
+    public Map<String, Map<String, byte[]>> hashGetAllBytes(Set<String> keys) {
+
+        Map<String, Map<String, byte[]>> resultsMap = new LinkedHashMap<>();
+
+        try {
+
+            // raw pipeline, executePipelined would decode the values with the template string serializers
+            List<Object> pipelinedResults = redisTemplate.execute(
+                    (RedisCallback<List<Object>>) connection -> {
+                        connection.openPipeline();
+                        keys.forEach(key -> connection.hashCommands().hGetAll(key.getBytes(StandardCharsets.UTF_8)));
+                        return connection.closePipeline();
+                    }
+            );
+
+            if (pipelinedResults == null) {
+                return resultsMap;
+            }
+
+            Iterator<String> keyIterator = keys.iterator();
+            for (Object result : pipelinedResults) {
+
+                String key = keyIterator.next();
+                Map<String, byte[]> fields = new HashMap<>();
+
+                if (result instanceof Map<?, ?> rawFields) {
+                    rawFields.forEach((field, value) -> fields.put(new String((byte[]) field, StandardCharsets.UTF_8), (byte[]) value));
+                }
+
+                resultsMap.put(key, fields);
+            }
+
+        } catch (Exception e) {
+            log.error("Failed to get all binary hashes", e);
+        }
+
+        return resultsMap;
+    }
+
+    @Override
+    public boolean hashPutAllBytes(Map<String, Map<String, byte[]>> valuesByKey) {
+
+        try {
+
+            redisTemplate.execute((RedisCallback<List<Object>>) connection -> {
+                connection.openPipeline();
+                valuesByKey.forEach((key, values) -> {
+                    Map<byte[], byte[]> fields = new HashMap<>();
+                    values.forEach((field, value) -> fields.put(field.getBytes(StandardCharsets.UTF_8), value));
+                    connection.hashCommands().hMSet(key.getBytes(StandardCharsets.UTF_8), fields);
+                });
+                return connection.closePipeline();
+            });
+            return true;
+
+        } catch (Exception e) {
+            log.error("Failed to put binary hashes", e);
+            return false;
+        }
+    }
+
+    @Override
+    public void hashReplaceIfUnchanged(String key, Map<String, byte[]> expectedValues, Map<String, byte[]> newValues) {
+
+        try {
+
+            List<byte[]> keysAndArgs = new ArrayList<>();
+            keysAndArgs.add(key.getBytes(StandardCharsets.UTF_8));
+
+            newValues.forEach((field, value) -> {
+                keysAndArgs.add(field.getBytes(StandardCharsets.UTF_8));
+                keysAndArgs.add(expectedValues.get(field));
+                keysAndArgs.add(value);
+            });
+
+            redisTemplate.execute((RedisCallback<Long>) connection ->
+                    connection.scriptingCommands().eval(REPLACE_IF_UNCHANGED_SCRIPT, ReturnType.INTEGER, 1, keysAndArgs.toArray(new byte[0][])));
+
+        } catch (Exception e) {
+            log.error("Failed to replace hash values for key {}", key, e);
+        }
+    }
+
+    @Override
+    public void sortedSetAdd(String key, String member, double score) {
+
+        try {
+            redisTemplate.opsForZSet().add(key, member, score);
+        } catch (Exception e) {
+            log.error("Failed to add member {} to sorted set {}", member, key, e);
+        }
+    }
+
+    @Override
+    public Set<String> sortedSetRangeByScore(String key, double min, double max) {
+
+        try {
+            Set<String> members = redisTemplate.opsForZSet().rangeByScore(key, min, max);
+            return members != null ? members : Collections.emptySet();
+        } catch (Exception e) {
+            log.error("Failed to get range of sorted set {}", key, e);
+            return Collections.emptySet();
+        }
+    }
+
+    @Override
+    public void sortedSetRemoveRangeByScore(String key, double min, double max) {
+
+        try {
+            redisTemplate.opsForZSet().removeRangeByScore(key, min, max);
+        } catch (Exception e) {
+            log.error("Failed to remove range of sorted set {}", key, e);
+        }
+    }
+
+    @Override
+    public void sortedSetRemove(String key, String member) {
+
+        try {
+            redisTemplate.opsForZSet().remove(key, member);
+        } catch (Exception e) {
+            log.error("Failed to remove member {} from sorted set {}", member, key, e);
+        }
+    }
+
+    @Override
+    public void sortedSetAddAll(String key, Map<String, Double> scores) {
+
+        if (scores.isEmpty()) return;
+
+        try {
+            Set<ZSetOperations.TypedTuple<String>> tuples = new HashSet<>();
+            scores.forEach((member, score) -> tuples.add(ZSetOperations.TypedTuple.of(member, score)));
+            redisTemplate.opsForZSet().add(key, tuples);
+        } catch (Exception e) {
+            log.error("Failed to add members to sorted set {}", key, e);
+        }
+    }
+
+    @Override
+    public void scriptExecute(String script, List<String> keys, List<String> args) {
+
+        try {
+            redisTemplate.execute((RedisCallback<Object>) connection ->
+                    connection.scriptingCommands().eval(script.getBytes(StandardCharsets.UTF_8), ReturnType.STATUS, keys.size(), toBytes(keys, args)));
+        } catch (Exception e) {
+            log.error("Failed to execute script on keys {}", keys, e);
+        }
+    }
+
+    /**
+     * Runs the script once per call in a single pipeline, each call being its keys followed by its args.
+     * The script is loaded first so the pipelined calls only carry its SHA. A call that failed yields an empty list.
+     */
+    @Override
+    public List<List<byte[]>> scriptExecuteAllForBytes(String script, int keyCount, List<List<String>> keysAndArgsPerCall) {
+
+        if (keysAndArgsPerCall.isEmpty()) {
+            return Collections.emptyList();
+        }
+
+        try {
+
+            List<Object> pipelinedResults = redisTemplate.execute((RedisCallback<List<Object>>) connection -> {
+
+                String sha = connection.scriptingCommands().scriptLoad(script.getBytes(StandardCharsets.UTF_8));
+
+                connection.openPipeline();
+                keysAndArgsPerCall.forEach(keysAndArgs ->
+                        connection.scriptingCommands().evalSha(sha, ReturnType.MULTI, keyCount, toBytes(keysAndArgs, List.of())));
+
+                try {
+                    return connection.closePipeline();
+                } catch (RedisPipelineException e) {
+                    // the other calls already ran, keep their results
+                    log.error("Failed to execute some of {} pipelined scripts", keysAndArgsPerCall.size(), e);
+                    return e.getPipelineResult();
+                }
+            });
+
+            if (pipelinedResults == null) {
+                return Collections.emptyList();
+            }
+
+            List<List<byte[]>> results = new ArrayList<>(pipelinedResults.size());
+            for (Object result : pipelinedResults) {
+                results.add(result instanceof List<?> values
+                        ? values.stream().map(byte[].class::cast).toList()
+                        : Collections.emptyList());
+            }
+            return results;
+
+        } catch (Exception e) {
+            log.error("Failed to execute pipelined scripts", e);
+            return Collections.emptyList();
+        }
+    }
+
+    @Override
+    public Long scriptExecuteForLong(String script, List<String> keys, List<String> args) {
+
+        try {
+            return redisTemplate.execute((RedisCallback<Long>) connection ->
+                    connection.scriptingCommands().eval(script.getBytes(StandardCharsets.UTF_8), ReturnType.INTEGER, keys.size(), toBytes(keys, args)));
+        } catch (Exception e) {
+            log.error("Failed to execute script on keys {}", keys, e);
+            return null;
+        }
+    }
+
+    private byte[][] toBytes(List<String> keys, List<String> args) {
+
+        List<byte[]> keysAndArgs = new ArrayList<>(keys.size() + args.size());
+        keys.forEach(key -> keysAndArgs.add(key.getBytes(StandardCharsets.UTF_8)));
+        args.forEach(arg -> keysAndArgs.add(arg.getBytes(StandardCharsets.UTF_8)));
+        return keysAndArgs.toArray(new byte[0][]);
+    }
+
+    @Override
+    public void publish(String channel, String message) {
+        try {
+            redisTemplate.convertAndSend(channel, message);
+        } catch (Exception e) {
+            log.error("Failed to publish to channel {}", channel, e);
+        }
+    }
+
     @Override
     public void hashDelField(String hashKey, String field) {
         try {
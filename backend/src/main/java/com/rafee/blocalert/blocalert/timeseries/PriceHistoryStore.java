@@ -0,0 +1,249 @@
+package com.rafee.blocalert.blocalert.timeseries;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.rafee.blocalert.blocalert.DTO.internal.CryptoMarketLite;
+import com.rafee.blocalert.blocalert.config.SchedulerConfig;
+import com.rafee.blocalert.blocalert.config.TimeSeriesConfig;
+import com.rafee.blocalert.blocalert.market.MarketView;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.ZoneOffset;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.regex.Pattern;
+import java.util.stream.Stream;
+
+/**
+ * Local history of the polled prices, one {@link PriceSegment} per coin per UTC day under
+ * {@code <directory>/<cryptoId>/<yyyy-MM-dd>.seg}.
+ * <p>
+ * Every node appends each market view it swaps in to the segments of the current day, whether it fetched
+ * the view or loaded it from Redis, so followers and a new leader hold the same history as the node that
+ * ticks. Past days never change, so their points are decoded once and kept in memory. Charts up to one
+ * month are served from here, downsampled to the buckets the frontend draws, when the history covers the
+ * whole range without gaps.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class PriceHistoryStore {
+
+    private static final Pattern CRYPTO_ID = Pattern.compile("[a-z0-9][a-z0-9._-]*");
+
+    private final TimeSeriesConfig timeSeriesConfig;
+    private final SchedulerConfig schedulerConfig;
+    private final MeterRegistry meterRegistry;
+
+    private final Map<String, OpenSegment> openSegments = new ConcurrentHashMap<>();
+
+    private Path directory;
+    private Cache<String, List<PricePoint>> closedDays;
+    private long lastAppendedAt;
+
+    private record OpenSegment(LocalDate day, PriceSegment segment) {
+    }
+
+    private record ChartRange(Duration span, Duration bucket) {
+    }
+
+    @PostConstruct
+    void init() {
+
+        directory = Paths.get(timeSeriesConfig.getDirectory());
+        closedDays = CacheBuilder.newBuilder().maximumSize(timeSeriesConfig.getClosedDayCacheSize()).build();
+    }
+
+    public synchronized void append(MarketView view) {
+
+        long timestamp = view.fetchedAt();
+        if (!timeSeriesConfig.isEnabled() || timestamp <= lastAppendedAt) return;
+
+        lastAppendedAt = timestamp;
+        LocalDate day = dayOf(timestamp);
+        int appended = 0;
+
+        for (CryptoMarketLite crypto : view.liteList()) {
+
+            if (crypto.current_price() == null || !isValidId(crypto.id())) continue;
+
+            try {
+                PriceSegment segment = openSegment(crypto.id(), day);
+                PricePoint point = new PricePoint(timestamp, crypto.current_price().doubleValue(),
+                        crypto.market_cap() != null ? crypto.market_cap() : 0,
+                        view.volumeById().getOrDefault(crypto.id(), 0.0));
+
+                if (segment.append(point)) {
+                    appended++;
+                } else {
+                    log.warn("Price segment of {} for {} is full", crypto.id(), day);
+                }
+            } catch (IOException e) {
+                log.error("Failed to append the price of {}", crypto.id(), e);
+            }
+        }
+
+        meterRegistry.counter("timeseries.points", "result", "appended").increment(appended);
+    }
+
+    /**
+     * Chart in the shape of the CoinGecko market_chart response, or null when the days are not served
+     * locally or the history does not cover the range, at its ends or in a gap inside it.
+     */
+    public Map<String, Object> chart(String cryptoId, String days) {
+
+        ChartRange range = switch (days) {
+            case "1" -> new ChartRange(Duration.ofDays(1), Duration.ofMinutes(5));
+            case "7" -> new ChartRange(Duration.ofDays(7), Duration.ofMinutes(30));
+            case "30" -> new ChartRange(Duration.ofDays(30), Duration.ofHours(1));
+            default -> null;
+        };
+
+        if (range == null || !timeSeriesConfig.isEnabled() || !isValidId(cryptoId)) return null;
+
+        long to = System.currentTimeMillis();
+        long from = to - range.span().toMillis();
+        List<PricePoint> points = range(cryptoId, from, to);
+
+        long bucketMs = range.bucket().toMillis();
+        long maxGap = 2 * Math.max(bucketMs, schedulerConfig.getMaxCryptoIntervalMs());
+
+        if (!covers(points, from, to, maxGap)) {
+            meterRegistry.counter("timeseries.charts", "result", "not_covered").increment();
+            return null;
+        }
+
+        List<List<Number>> prices = new ArrayList<>();
+        List<List<Number>> marketCaps = new ArrayList<>();
+        List<List<Number>> volumes = new ArrayList<>();
+
+        // the last point of each bucket
+        for (int i = 0; i < points.size(); i++) {
+
+            PricePoint point = points.get(i);
+            boolean lastOfBucket = i == points.size() - 1
+                    || (points.get(i + 1).timestamp() - from) / bucketMs != (point.timestamp() - from) / bucketMs;
+
+            if (lastOfBucket) {
+                prices.add(List.of(point.timestamp(), point.price()));
+                marketCaps.add(List.of(point.timestamp(), point.marketCap()));
+                volumes.add(List.of(point.timestamp(), point.volume()));
+            }
+        }
+
+        meterRegistry.counter("timeseries.charts", "result", "served").increment();
+        return Map.of("prices", prices, "market_caps", marketCaps, "total_volumes", volumes);
+    }
+
+    static boolean covers(List<PricePoint> points, long from, long to, long maxGap) {
+
+        if (points.isEmpty() || points.getFirst().timestamp() > from + maxGap || points.getLast().timestamp() < to - maxGap) {
+            return false;
+        }
+
+        for (int i = 1; i < points.size(); i++) {
+            if (points.get(i).timestamp() - points.get(i - 1).timestamp() > maxGap) return false;
+        }
+        return true;
+    }
+
+    public List<PricePoint> range(String cryptoId, long from, long to) {
+
+        List<PricePoint> points = new ArrayList<>();
+        LocalDate today = dayOf(System.currentTimeMillis());
+
+        for (LocalDate day = dayOf(from); !day.isAfter(dayOf(to)); day = day.plusDays(1)) {
+            for (PricePoint point : dayPoints(cryptoId, day, today)) {
+                if (point.timestamp() >= from && point.timestamp() <= to) points.add(point);
+            }
+        }
+        return points;
+    }
+
+    private List<PricePoint> dayPoints(String cryptoId, LocalDate day, LocalDate today) {
+
+        if (!day.isBefore(today)) {
+            OpenSegment open = openSegments.get(cryptoId);
+            if (open != null && open.day().equals(day)) return open.segment().points();
+        }
+
+        Path file = segmentFile(cryptoId, day);
+        if (!Files.exists(file)) return List.of();
+
+        try {
+            if (day.isBefore(today)) {
+                return closedDays.get(cryptoId + "/" + day, () -> PriceSegment.read(file));
+            }
+            return PriceSegment.read(file);
+        } catch (Exception e) {
+            log.error("Failed to read price segment {}", file, e);
+            return List.of();
+        }
+    }
+
+    private PriceSegment openSegment(String cryptoId, LocalDate day) throws IOException {
+
+        OpenSegment open = openSegments.get(cryptoId);
+        if (open != null && open.day().equals(day)) return open.segment();
+
+        if (open != null) open.segment().flush();
+
+        PriceSegment segment = PriceSegment.open(segmentFile(cryptoId, day), timeSeriesConfig.getSegmentBytes());
+        openSegments.put(cryptoId, new OpenSegment(day, segment));
+        return segment;
+    }
+
+    @Scheduled(cron = "0 15 0 * * *", zone = "UTC")
+    public void purgeExpiredDays() {
+
+        if (!timeSeriesConfig.isEnabled() || !Files.isDirectory(directory)) return;
+
+        LocalDate oldestKept = dayOf(System.currentTimeMillis()).minusDays(timeSeriesConfig.getRetentionDays());
+        int deleted = 0;
+
+        try (Stream<Path> files = Files.walk(directory, 2)) {
+            for (Path file : files.filter(f -> f.toString().endsWith(".seg")).toList()) {
+                LocalDate day = LocalDate.parse(file.getFileName().toString().replace(".seg", ""));
+                if (day.isBefore(oldestKept)) {
+                    Files.deleteIfExists(file);
+                    deleted++;
+                }
+            }
+        } catch (Exception e) {
+            log.error("Failed to purge price segments", e);
+        }
+
+        log.info("Purged {} price segments older than {}", deleted, oldestKept);
+    }
+
+    @PreDestroy
+    void flush() {
+        openSegments.values().forEach(open -> open.segment().flush());
+    }
+
+    private Path segmentFile(String cryptoId, LocalDate day) {
+        return directory.resolve(cryptoId).resolve(day + ".seg");
+    }
+
+    private static boolean isValidId(String cryptoId) {
+        return cryptoId != null && CRYPTO_ID.matcher(cryptoId).matches() && !cryptoId.contains("..");
+    }
+
+    private static LocalDate dayOf(long timestamp) {
+        return LocalDate.ofInstant(Instant.ofEpochMilli(timestamp), ZoneOffset.UTC);
+    }
+
+}
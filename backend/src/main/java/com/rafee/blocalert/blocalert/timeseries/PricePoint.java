@@ -0,0 +1,4 @@
+package com.rafee.blocalert.blocalert.timeseries;
+
+public record PricePoint(long timestamp, double price, double marketCap, double volume) {
+}
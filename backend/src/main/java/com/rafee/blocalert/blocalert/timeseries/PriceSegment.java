@@ -0,0 +1,235 @@
+package com.rafee.blocalert.blocalert.timeseries;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Append-only, memory-mapped file holding the price points of one coin for one day.
+ * <p>
+ * Layout: a 16 byte header (magic, point count, end offset, reserved) followed by the points. Timestamps
+ * are stored as the zigzag varint of their delta-of-delta, so a steady tick costs one byte. Price, market
+ * cap and volume are XORed with the previous value of the same series and only the bytes between the
+ * leading and trailing zero bytes are written, behind a control byte holding both counts.
+ * <p>
+ * The count is written after the point bytes, readers decode only counted points. Opening a segment moves
+ * the end offset back to the last counted point, so bytes of a point that was not counted before a crash
+ * are overwritten instead of being read in place of the next point.
+ */
+final class PriceSegment {
+
+    private static final int MAGIC = 0x42545331;
+    private static final int HEADER_BYTES = 16;
+    private static final int COUNT_OFFSET = 4;
+    private static final int END_OFFSET = 8;
+    private static final int MAX_POINT_BYTES = 10 + 3 * 9;
+    private static final byte UNCHANGED = (byte) 0x80;
+
+    private final MappedByteBuffer buffer;
+    private final Decoder state = new Decoder();
+
+    private PriceSegment(MappedByteBuffer buffer) {
+        this.buffer = buffer;
+    }
+
+    static PriceSegment open(Path file, int capacity) throws IOException {
+
+        Files.createDirectories(file.getParent());
+
+        MappedByteBuffer buffer;
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, Math.max(capacity, channel.size()));
+        }
+
+        PriceSegment segment = new PriceSegment(buffer);
+        int magic = buffer.getInt(0);
+
+        if (magic == 0) {
+            buffer.putInt(0, MAGIC);
+            buffer.putInt(COUNT_OFFSET, 0);
+            buffer.putInt(END_OFFSET, HEADER_BYTES);
+        } else if (magic != MAGIC) {
+            throw new IOException("Not a price segment: " + file);
+        } else {
+            // replay the points to continue the delta and XOR chains
+            int end = segment.state.decode(buffer, buffer.getInt(COUNT_OFFSET), null);
+            buffer.putInt(END_OFFSET, end);
+        }
+
+        return segment;
+    }
+
+    /**
+     * Points of a segment that is no longer written to.
+     */
+    static List<PricePoint> read(Path file) throws IOException {
+
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            if (buffer.capacity() < HEADER_BYTES || buffer.getInt(0) != MAGIC) {
+                throw new IOException("Not a price segment: " + file);
+            }
+
+            int count = buffer.getInt(COUNT_OFFSET);
+            List<PricePoint> points = new ArrayList<>(count);
+            new Decoder().decode(buffer, count, points);
+            return points;
+        }
+    }
+
+    /**
+     * @return false when the segment is full
+     */
+    synchronized boolean append(PricePoint point) {
+
+        int end = buffer.getInt(END_OFFSET);
+        if (end + MAX_POINT_BYTES > buffer.capacity()) {
+            return false;
+        }
+
+        ByteBuffer out = buffer.duplicate().position(end);
+        int count = state.count;
+
+        long delta = count == 0 ? point.timestamp() : point.timestamp() - state.timestamp;
+        writeVarLong(out, zigzag(count <= 1 ? delta : delta - state.delta));
+
+        writeXor(out, state.priceBits, Double.doubleToLongBits(point.price()));
+        writeXor(out, state.marketCapBits, Double.doubleToLongBits(point.marketCap()));
+        writeXor(out, state.volumeBits, Double.doubleToLongBits(point.volume()));
+
+        state.accept(point, count == 0 ? 0 : delta);
+
+        buffer.putInt(END_OFFSET, out.position());
+        buffer.putInt(COUNT_OFFSET, state.count);
+        return true;
+    }
+
+    synchronized List<PricePoint> points() {
+
+        List<PricePoint> points = new ArrayList<>(state.count);
+        new Decoder().decode(buffer, state.count, points);
+        return points;
+    }
+
+    synchronized void flush() {
+        buffer.force();
+    }
+
+    private static void writeXor(ByteBuffer out, long previousBits, long bits) {
+
+        long xor = previousBits ^ bits;
+        if (xor == 0) {
+            out.put(UNCHANGED);
+            return;
+        }
+
+        int leading = Long.numberOfLeadingZeros(xor) / 8;
+        int trailing = Long.numberOfTrailingZeros(xor) / 8;
+        out.put((byte) (leading << 4 | trailing));
+
+        for (int i = 7 - leading; i >= trailing; i--) {
+            out.put((byte) (xor >>> (i * 8)));
+        }
+    }
+
+    private static long readXor(ByteBuffer in, long previousBits) {
+
+        int control = in.get() & 0xFF;
+        if (control == (UNCHANGED & 0xFF)) {
+            return previousBits;
+        }
+
+        int leading = control >>> 4;
+        int trailing = control & 0x0F;
+        long xor = 0;
+
+        for (int i = 7 - leading; i >= trailing; i--) {
+            xor |= (in.get() & 0xFFL) << (i * 8);
+        }
+        return previousBits ^ xor;
+    }
+
+    private static void writeVarLong(ByteBuffer out, long value) {
+
+        while ((value & ~0x7FL) != 0) {
+            out.put((byte) ((value & 0x7F) | 0x80));
+            value >>>= 7;
+        }
+        out.put((byte) value);
+    }
+
+    private static long readVarLong(ByteBuffer in) {
+
+        long value = 0;
+        for (int shift = 0; ; shift += 7) {
+            byte b = in.get();
+            value |= (long) (b & 0x7F) << shift;
+            if ((b & 0x80) == 0) return value;
+        }
+    }
+
+    private static long zigzag(long value) {
+        return (value << 1) ^ (value >> 63);
+    }
+
+    private static long unzigzag(long value) {
+        return (value >>> 1) ^ -(value & 1);
+    }
+
+    /**
+     * Running state of the delta and XOR chains, shared by decoding and appending.
+     */
+    private static final class Decoder {
+
+        int count;
+        long timestamp;
+        long delta;
+        long priceBits;
+        long marketCapBits;
+        long volumeBits;
+
+        /**
+         * @return the offset after the last decoded point
+         */
+        int decode(ByteBuffer buffer, int points, List<PricePoint> out) {
+
+            ByteBuffer in = buffer.duplicate().position(HEADER_BYTES);
+
+            for (int i = 0; i < points; i++) {
+
+                long encoded = unzigzag(readVarLong(in));
+                long pointDelta = count == 0 ? 0 : count == 1 ? encoded : delta + encoded;
+                long pointTimestamp = count == 0 ? encoded : timestamp + pointDelta;
+
+                priceBits = readXor(in, priceBits);
+                marketCapBits = readXor(in, marketCapBits);
+                volumeBits = readXor(in, volumeBits);
+
+                PricePoint point = new PricePoint(pointTimestamp, Double.longBitsToDouble(priceBits),
+                        Double.longBitsToDouble(marketCapBits), Double.longBitsToDouble(volumeBits));
+
+                accept(point, pointDelta);
+                if (out != null) out.add(point);
+            }
+            return in.position();
+        }
+
+        void accept(PricePoint point, long pointDelta) {
+
+            timestamp = point.timestamp();
+            delta = pointDelta;
+            priceBits = Double.doubleToLongBits(point.price());
+            marketCapBits = Double.doubleToLongBits(point.marketCap());
+            volumeBits = Double.doubleToLongBits(point.volume());
+            count++;
+        }
+    }
+
+}
@@ -0,0 +1,89 @@
+package com.rafee.blocalert.blocalert.utils;
+
+import com.rafee.blocalert.blocalert.DTO.internal.IndexedAlert;
+import com.rafee.blocalert.blocalert.entity.enums.AlertCondition;
+
+import java.nio.ByteBuffer;
+
+/**
+ * Fixed layout binary form of a cached alert stored in the {@code alerts:coin:*} hashes.
+ * <pre>
+ * byte 0      format version
+ * byte 1      flags: bits 0-1 condition, bit 2 websocket, bit 3 email, bit 4 sms
+ * byte 2      threshold scale
+ * byte 3      reserved
+ * bytes 4-11  alert id
+ * bytes 12-19 user id
+ * bytes 20-27 threshold as a scaled price
+ * bytes 28-35 active since, epoch millis
+ * </pre>
+ * The crypto id is not stored, it is part of the hash key. Version 1 values end after the threshold and
+ * decode with an unknown active since of 0.
+ */
+public final class CachedAlertCodec {
+
+    private CachedAlertCodec() {}
+
+    public static final byte VERSION = 2;
+    public static final int LENGTH = 36;
+
+    private static final byte VERSION_1 = 1;
+    private static final int VERSION_1_LENGTH = 28;
+
+    private static final int CONDITION_MASK = 0b11;
+    private static final int WEBSOCKET_FLAG = 1 << 2;
+    private static final int EMAIL_FLAG = 1 << 3;
+    private static final int SMS_FLAG = 1 << 4;
+
+    private static final AlertCondition[] CONDITIONS = AlertCondition.values();
+
+    public static byte[] encode(IndexedAlert alert) {
+
+        int flags = alert.alertCondition().ordinal();
+        if (alert.notificationWebsocket()) flags |= WEBSOCKET_FLAG;
+        if (alert.notificationEmail()) flags |= EMAIL_FLAG;
+        if (alert.notificationSms()) flags |= SMS_FLAG;
+
+        return ByteBuffer.allocate(LENGTH)
+                .put(VERSION)
+                .put((byte) flags)
+                .put((byte) alert.thresholdScale())
+                .put((byte) 0)
+                .putLong(alert.alertId())
+                .putLong(alert.userId())
+                .putLong(alert.threshold())
+                .putLong(alert.activeSince())
+                .array();
+    }
+
+    public static boolean isEncoded(byte[] value) {
+        return value != null
+                && (value.length == LENGTH && value[0] == VERSION || value.length == VERSION_1_LENGTH && value[0] == VERSION_1);
+    }
+
+    public static IndexedAlert decode(byte[] value) {
+
+        if (!isEncoded(value)) {
+            throw new IllegalArgumentException("Unsupported cached alert format");
+        }
+
+        ByteBuffer buffer = ByteBuffer.wrap(value, 1, value.length - 1);
+
+        int flags = buffer.get();
+        int scale = buffer.get();
+        buffer.get();
+
+        return new IndexedAlert(
+                buffer.getLong(),
+                buffer.getLong(),
+                buffer.getLong(),
+                scale,
+                CONDITIONS[flags & CONDITION_MASK],
+                (flags & WEBSOCKET_FLAG) != 0,
+                (flags & EMAIL_FLAG) != 0,
+                (flags & SMS_FLAG) != 0,
+                buffer.hasRemaining() ? buffer.getLong() : 0L
+        );
+    }
+
+}
@@ -8,13 +8,53 @@ public final class RedisKeys {
 
     public static String CRYPTO_FULL_HASH = "crypto:data:full";
     public static String CRYPTO_DATA_LITE = "crypto:data:lite";
+    public static String CRYPTO_DATA_LITE_VERSION = "crypto:data:lite:version";
+    public static String CRYPTO_DATA_TICK = "crypto:data:tick";
+    public static String MARKET_VERSION_CHANNEL = "market:version";
     public static String MARKET_STATS = "market:stats";
+    public static String ALERT_NODES = "alerts:nodes";
+    public static String ALERT_CACHE_REBUILT = "alerts:rebuilt";
+    public static String ALERT_CACHE_REBUILD_LOCK = "alerts:rebuild:lock";
+    public static String CRYPTO_DATA_REFRESH_LOCK = "crypto:data:refresh:lock";
+    public static String MARKET_STATS_REFRESH_LOCK = "market:stats:refresh:lock";
+    public static String SCHEDULER_LEADER = "scheduler:leader";
+    public static String SCHEDULER_LEADER_TOKEN = "scheduler:leader:token";
+    public static String CRYPTO_TICK_CLAIM = "scheduler:crypto:claim";
+    public static String MARKET_STATS_CLAIM = "scheduler:market-stats:claim";
+    public static String ALERT_FIELD_PREFIX = "alert:";
 
     public static String alertKey(String cryptoId) {
         return "alerts:coin:"+cryptoId;
     }
+    public static String alertVersionKey(String cryptoId) {
+        return "alerts:version:"+cryptoId;
+    }
+    public static String alertAboveKey(String cryptoId) {
+        return "alerts:above:"+cryptoId;
+    }
+    public static String alertBelowKey(String cryptoId) {
+        return "alerts:below:"+cryptoId;
+    }
+    public static String alertEqualsKey(String cryptoId, int scale) {
+        return "alerts:equals:"+cryptoId+":"+scale;
+    }
+    public static String alertAddedKey(String cryptoId) {
+        return "alerts:added:"+cryptoId;
+    }
+    public static String alertYoungKey(String cryptoId) {
+        return "alerts:young:"+cryptoId;
+    }
+    public static String alertIndexedKey(String cryptoId) {
+        return "alerts:indexed:"+cryptoId;
+    }
+    public static String coingeckoBudgetKey(long minute) {
+        return "coingecko:budget:"+minute;
+    }
+    public static String coingeckoOtherRequestsKey(long minute) {
+        return "coingecko:budget:other:"+minute;
+    }
     public static String alertId(Long alertId) {
-        return "alert:"+alertId;
+        return ALERT_FIELD_PREFIX+alertId;
     }
 
     public static String templateKey(AlertChannel channel, String code) {
@@ -0,0 +1,64 @@
+package com.rafee.blocalert.blocalert.utils;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+
+/**
+ * Fixed-point prices as longs with 8 decimals, the scale of the {@code threshold_value} column.
+ * Conversions round DOWN and saturate at the long range.
+ */
+public final class ScaledPrice {
+
+    private ScaledPrice() {}
+
+    public static final int SCALE = 8;
+    public static final int MIN_SCALE = -10;
+
+    private static final BigDecimal MAX = BigDecimal.valueOf(Long.MAX_VALUE, SCALE);
+
+    public static long toScaled(BigDecimal price) {
+
+        if (price.compareTo(MAX) >= 0) return Long.MAX_VALUE;
+        if (price.signum() <= 0) return 0L;
+
+        return price.setScale(SCALE, RoundingMode.DOWN).unscaledValue().longValue();
+    }
+
+    public static BigDecimal toBigDecimal(long scaledPrice, int scale) {
+        return BigDecimal.valueOf(scaledPrice, SCALE).setScale(scale, RoundingMode.DOWN);
+    }
+
+    /**
+     * Clamps a decimal scale to the range the fixed-point representation can express.
+     */
+    public static int normalizeScale(int scale) {
+        return Math.max(MIN_SCALE, Math.min(SCALE, scale));
+    }
+
+    /**
+     * Scale of a threshold as it was entered. The column pads every threshold to 8 decimals, dropping the
+     * trailing zeros again gives a threshold read back from MySQL the scale it had when it was saved.
+     */
+    public static int thresholdScale(BigDecimal threshold) {
+        return normalizeScale(Math.max(0, threshold.stripTrailingZeros().scale()));
+    }
+
+    /**
+     * Smallest step of a price with the given decimal scale, as a scaled long.
+     */
+    public static long unit(int scale) {
+
+        long unit = 1L;
+        for (int i = normalizeScale(scale); i < SCALE; i++) {
+            unit *= 10;
+        }
+        return unit;
+    }
+
+    public static long add(long scaledPrice, long delta) {
+
+        long sum = scaledPrice + delta;
+        return ((scaledPrice ^ sum) & (delta ^ sum)) < 0 ? (delta > 0 ? Long.MAX_VALUE : Long.MIN_VALUE) : sum;
+    }
+
+}
@@ -4,12 +4,12 @@ import com.fasterxml.jackson.core.JsonProcessingException;
 import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.rafee.blocalert.blocalert.DTO.PageDTO;
-import com.rafee.blocalert.blocalert.DTO.Pagination;
-import com.rafee.blocalert.blocalert.DTO.internal.CryptoMarketLite;
 import com.rafee.blocalert.blocalert.DTO.internal.MarketStatsData;
 import com.rafee.blocalert.blocalert.DTO.response.CryptoResponse;
 import com.rafee.blocalert.blocalert.events.event.CryptoTableBroadcastEvent;
 import com.rafee.blocalert.blocalert.events.event.MarketStatsBroadcastEvent;
+import com.rafee.blocalert.blocalert.market.CryptoSort;
+import com.rafee.blocalert.blocalert.market.CryptoTable;
 import com.rafee.blocalert.blocalert.service.CryptoService;
 import jakarta.annotation.PreDestroy;
 import lombok.RequiredArgsConstructor;
@@ -23,8 +23,8 @@ import org.springframework.web.socket.handler.TextWebSocketHandler;
 
 import java.io.IOException;
 import java.time.LocalDateTime;
+import java.util.HashMap;
 import java.util.HashSet;
-import java.util.List;
 import java.util.Map;
 import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
@@ -88,21 +88,24 @@ public class HomepageWebSocketHandler extends TextWebSocketHandler {
 
         int page = jsonNode.path("page").asInt(-1);
         int size = jsonNode.path("size").asInt(-1);
+        CryptoSort sort = CryptoSort.parse(jsonNode.path("sort").asText(null));
 
         if (!isValidPageRequest(page, size)) {
             sendErrorMessage(session, "Invalid page or size");
             return;
         }
 
-        List<CryptoMarketLite> cryptoMarketLiteList = cryptoService.getCachedCryptoData();
+        if (sort == null) {
+            sendErrorMessage(session, "Invalid sort");
+            return;
+        }
 
-        int totalPages = (int) Math.ceil((double) cryptoMarketLiteList.size() / size);
-        if (page > totalPages) page = totalPages;
+        CryptoResponse response = cryptoService.getCryptoTable(page, size, sort);
 
-        PageDTO pageDTO = new PageDTO(page, size);
+        PageDTO pageDTO = new PageDTO(response.pagination().page(), size, sort);
         subscriptionMap.put(session.getId(), pageDTO);
 
-        sendCryptoDataMessage(session, page, size, cryptoMarketLiteList);
+        sendCryptoDataMessage(session, response);
     }
 
     private void handleMarketDataSubscription(WebSocketSession session) throws IOException {
@@ -116,7 +119,8 @@ public class HomepageWebSocketHandler extends TextWebSocketHandler {
 
         log.info("broadcastCryptoUpdates to {} sessions at {}", sessions.size(), LocalDateTime.now());
 
-        List<CryptoMarketLite> cryptoMarketLiteList = cryptoTableBroadcastEvent.cryptoMarketLiteList();
+        CryptoTable cryptoTable = CryptoTable.of(cryptoTableBroadcastEvent.cryptoMarketLiteList());
+        Map<PageDTO, TextMessage> frames = new HashMap<>();
         Set<WebSocketSession> sessionsToCleanup = new HashSet<>();
 
         for (WebSocketSession session : sessions) {
@@ -134,13 +138,21 @@ public class HomepageWebSocketHandler extends TextWebSocketHandler {
                     continue;
                 }
 
-                sendCryptoDataMessage(session, pageDTO.page(), pageDTO.size(), cryptoMarketLiteList);
+                TextMessage frame = frames.get(pageDTO);
+                if (frame == null) {
+                    frame = cryptoDataFrame(cryptoTable.page(pageDTO.sort(), pageDTO.page(), pageDTO.size()));
+                    frames.put(pageDTO, frame);
+                }
+
+                sendSessionMessage(session, frame);
 
             } catch (Exception e) {
                 log.error("Exception occurred at broadcastCryptoUpdates : {}", e.getMessage(), e);
             }
         }
 
+        log.info("broadcastCryptoUpdates serialized {} distinct pages", frames.size());
+
         if (!sessionsToCleanup.isEmpty()) {
             log.info("Cleaning up {} closed session from broadcastCryptoUpdates ", sessionsToCleanup.size());
             sessionsToCleanup.forEach(this::closeSession);
@@ -152,7 +164,15 @@ public class HomepageWebSocketHandler extends TextWebSocketHandler {
 
         log.info("broadcastMarketStatsUpdates to {} at {}", sessions.size(), LocalDateTime.now());
 
-        MarketStatsData marketStatsData = marketStatsBroadcastEvent.marketStatsData();
+        TextMessage frame;
+        try {
+            frame = new TextMessage(objectMapper.writeValueAsString(
+                    Map.of("type", TYPE_MARKET_DATA, "data", marketStatsBroadcastEvent.marketStatsData())));
+        } catch (JsonProcessingException e) {
+            log.error("Failed to serialize market stats for broadcast", e);
+            return;
+        }
+
         Set<WebSocketSession> sessionsToCleanup = new HashSet<>();
 
         for (WebSocketSession session : sessions) {
@@ -163,7 +183,7 @@ public class HomepageWebSocketHandler extends TextWebSocketHandler {
                     continue;
                 }
 
-                sendMarketStatsMessage(session, marketStatsData);
+                sendSessionMessage(session, frame);
 
             } catch (Exception e) {
                 log.error("Exception occurred at broadcastMarketStatsUpdate : {}", e.getMessage(), e);
@@ -176,21 +196,18 @@ public class HomepageWebSocketHandler extends TextWebSocketHandler {
         }
     }
 
-    public void sendCryptoDataMessage(WebSocketSession session, int page, int size, List<CryptoMarketLite> cryptoMarketLiteList) throws JsonProcessingException {
-
-        int fromIndex = (page - 1) * size;
-        int toIndex = Math.min(fromIndex + size, cryptoMarketLiteList.size());
-        List<CryptoMarketLite> paginatedCryptoData = cryptoMarketLiteList.subList(fromIndex, toIndex);
+    public void sendCryptoDataMessage(WebSocketSession session, CryptoResponse response) throws JsonProcessingException {
 
-        int totalPages = (int) Math.ceil((double) cryptoMarketLiteList.size() / size);
-        Pagination pagination = new Pagination(page, size, totalPages);
+        sendSessionMessage(session, cryptoDataFrame(response));
 
-        CryptoResponse response = new CryptoResponse(paginatedCryptoData, pagination);
+    }
 
-        String jsonResponse = objectMapper.writeValueAsString(Map.of("type", TYPE_CRYPTO_DATA, "data", response));
-
-        sendSessionMessage(session, jsonResponse);
+    /**
+     * One encoded frame per page, shared by every session that watches the same page, size and sort.
+     */
+    private TextMessage cryptoDataFrame(CryptoResponse response) throws JsonProcessingException {
 
+        return new TextMessage(objectMapper.writeValueAsString(Map.of("type", TYPE_CRYPTO_DATA, "data", response)));
     }
 
     private void sendMarketStatsMessage(WebSocketSession session, MarketStatsData marketData) throws IOException {
@@ -207,8 +224,12 @@ public class HomepageWebSocketHandler extends TextWebSocketHandler {
 
 
     private void sendSessionMessage(WebSocketSession session, String response) {
+        sendSessionMessage(session, new TextMessage(response));
+    }
+
+    private void sendSessionMessage(WebSocketSession session, TextMessage message) {
         try {
-            session.sendMessage(new TextMessage(response));
+            session.sendMessage(message);
         } catch (Exception e) {
             log.error("Exception occurred while sending the crypto data to session : {}", session.getId(), e);
         }
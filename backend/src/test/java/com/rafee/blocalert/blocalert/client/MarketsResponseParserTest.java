@@ -0,0 +1,81 @@
+package com.rafee.blocalert.blocalert.client;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.rafee.blocalert.blocalert.DTO.internal.CryptoMarketData;
+import com.rafee.blocalert.blocalert.DTO.internal.CryptoMarketLite;
+import com.rafee.blocalert.blocalert.DTO.internal.MarketSnapshot;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * The streaming parser must give the records {@code objectMapper.readValue} gives for the same response, and
+ * the JSON it keeps for Redis must read back into those records.
+ */
+class MarketsResponseParserTest {
+
+    private final ObjectMapper objectMapper = new ObjectMapper()
+            .configure(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES, false);
+
+    private MarketSnapshot parse() throws IOException {
+
+        try (InputStream body = response()) {
+            return MarketsResponseParser.parse(body, objectMapper.getFactory());
+        }
+    }
+
+    private <T> T read(TypeReference<T> type) throws IOException {
+
+        try (InputStream body = response()) {
+            return objectMapper.readValue(body, type);
+        }
+    }
+
+    private static InputStream response() {
+        return MarketsResponseParserTest.class.getResourceAsStream("/coingecko/markets.json");
+    }
+
+    @Test
+    void recordsMatchObjectMapper() throws IOException {
+
+        MarketSnapshot snapshot = parse();
+
+        List<CryptoMarketData> expectedFull = read(new TypeReference<>() {});
+        List<CryptoMarketLite> expectedLite = read(new TypeReference<>() {});
+
+        assertThat(snapshot.liteList()).isEqualTo(expectedLite);
+        assertThat(new ArrayList<>(snapshot.fullById().values())).isEqualTo(expectedFull);
+    }
+
+    @Test
+    void keptJsonReadsBackIntoTheSameRecords() throws IOException {
+
+        MarketSnapshot snapshot = parse();
+
+        for (CryptoMarketData crypto : snapshot.fullById().values()) {
+            assertThat(objectMapper.readValue(snapshot.fullJsonById().get(crypto.id()), CryptoMarketData.class))
+                    .isEqualTo(crypto);
+        }
+
+        assertThat(objectMapper.readValue(snapshot.liteListJson(), new TypeReference<List<CryptoMarketLite>>() {}))
+                .isEqualTo(snapshot.liteList());
+    }
+
+    @Test
+    void keepsPriceDigitsAndVolumes() throws IOException {
+
+        MarketSnapshot snapshot = parse();
+
+        assertThat(snapshot.fullJsonById().get("bitcoin")).contains("\"current_price\":106543.12345678");
+        assertThat(snapshot.fullJsonById().get("bitcoin")).doesNotContain("total_volume", "roi", "last_updated");
+        assertThat(snapshot.volumeById()).containsEntry("bitcoin", 34567890123.0).containsEntry("new-listing", 0.0);
+    }
+
+}
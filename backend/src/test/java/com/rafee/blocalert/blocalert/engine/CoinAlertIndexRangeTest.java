@@ -0,0 +1,71 @@
+package com.rafee.blocalert.blocalert.engine;
+
+import com.rafee.blocalert.blocalert.DTO.internal.IndexedAlert;
+import com.rafee.blocalert.blocalert.config.AlertEngineConfig;
+import com.rafee.blocalert.blocalert.entity.enums.AlertCondition;
+import com.rafee.blocalert.blocalert.utils.ScaledPrice;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * The 24h range must not fire an alert on an extreme from before the alert existed.
+ */
+class CoinAlertIndexRangeTest {
+
+    private static long scaled(String price) {
+        return ScaledPrice.toScaled(new BigDecimal(price));
+    }
+
+    private static IndexedAlert below(long alertId, String threshold, long activeSince) {
+        return new IndexedAlert(alertId, 7L, scaled(threshold), 0, AlertCondition.PRICE_BELOW, true, false, false, activeSince);
+    }
+
+    // previous tick at 100, now 101, 24h low of 90
+    private static final PriceInterval INTERVAL = PriceInterval.of(scaled("101")).widen(scaled("100")).widenBeyondTick(scaled("90"));
+
+    @Test
+    void oldAlertFiresOnThe24hRange() {
+
+        CoinAlertIndex index = new CoinAlertIndex(1L, List.of(below(1, "95", 0L)), null);
+
+        assertThat(index.match(INTERVAL)).extracting(IndexedAlert::alertId).containsExactly(1L);
+    }
+
+    @Test
+    void youngAlertOnlySeesTheTick() {
+
+        long anHourAgo = System.currentTimeMillis() - 3_600_000;
+        CoinAlertIndex index = new CoinAlertIndex(1L, List.of(below(1, "95", anHourAgo), below(2, "100.5", anHourAgo)), null);
+
+        assertThat(index.match(INTERVAL)).extracting(IndexedAlert::alertId).containsExactly(2L);
+        // held back by its age only, so the same range is evaluated again on the next tick
+        assertThat(index.isEvaluated(INTERVAL.low(), INTERVAL.high())).isFalse();
+        assertThat(index.isEvaluated(INTERVAL.tickLow(), INTERVAL.tickHigh())).isTrue();
+    }
+
+    @Test
+    void alertOlderThanTheRangeSeesItAgain() {
+
+        long twoDaysAgo = System.currentTimeMillis() - 2 * CoinAlertIndex.RANGE_24H_MS;
+        CoinAlertIndex index = new CoinAlertIndex(1L, List.of(below(1, "95", twoDaysAgo)), null);
+
+        assertThat(index.match(INTERVAL)).extracting(IndexedAlert::alertId).containsExactly(1L);
+    }
+
+    @Test
+    void crossingModeIsOptIn() {
+
+        AlertEngineConfig alertEngineConfig = new AlertEngineConfig();
+        alertEngineConfig.setInclude24hRange(true);
+        AlertMatchingEngine alertMatchingEngine = new AlertMatchingEngine(null, null, null, alertEngineConfig, null);
+
+        alertMatchingEngine.nextInterval("bitcoin", scaled("100"), 90, 110);
+
+        assertThat(alertMatchingEngine.nextInterval("bitcoin", scaled("101"), 90, 110)).isEqualTo(PriceInterval.of(scaled("101")));
+    }
+
+}
@@ -0,0 +1,60 @@
+package com.rafee.blocalert.blocalert.engine;
+
+import com.rafee.blocalert.blocalert.DTO.internal.CachedAlert;
+import com.rafee.blocalert.blocalert.DTO.internal.IndexedAlert;
+import com.rafee.blocalert.blocalert.entity.enums.AlertCondition;
+import com.rafee.blocalert.blocalert.utils.ScaledPrice;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * An alert rebuilt from the DECIMAL(20,8) column must fire exactly like the one cached when it was saved.
+ */
+class RebuiltAlertScaleTest {
+
+    private static IndexedAlert indexed(String threshold, AlertCondition condition) {
+        return IndexedAlert.from(new CachedAlert(1L, 7L, "bitcoin", new BigDecimal(threshold), condition, true, false, false, null));
+    }
+
+    private static boolean matches(IndexedAlert alert, String price) {
+
+        CoinAlertIndex index = new CoinAlertIndex(1L, List.of(alert), null);
+        return !index.match(PriceInterval.of(ScaledPrice.toScaled(new BigDecimal(price)))).isEmpty();
+    }
+
+    @Test
+    void rebuiltAlertKeepsTheEnteredScale() {
+
+        assertThat(indexed("65000.00000000", AlertCondition.PRICE_EQUALS))
+                .isEqualTo(indexed("65000", AlertCondition.PRICE_EQUALS));
+        assertThat(indexed("0.12500000", AlertCondition.PRICE_ABOVE))
+                .isEqualTo(indexed("0.125", AlertCondition.PRICE_ABOVE));
+    }
+
+    @Test
+    void rebuiltEqualsAlertMatchesLikeCachedAlert() {
+
+        IndexedAlert cached = indexed("65000", AlertCondition.PRICE_EQUALS);
+        IndexedAlert rebuilt = indexed("65000.00000000", AlertCondition.PRICE_EQUALS);
+
+        for (String price : List.of("64999.99999999", "65000", "65000.5", "65000.99999999", "65001")) {
+            assertThat(matches(rebuilt, price)).as("price %s", price).isEqualTo(matches(cached, price));
+        }
+        assertThat(matches(rebuilt, "65000.5")).isTrue();
+        assertThat(matches(rebuilt, "65001")).isFalse();
+    }
+
+    @Test
+    void rebuiltAboveAlertFiresFromTheNextUnitOfTheEnteredScale() {
+
+        IndexedAlert rebuilt = indexed("65000.00000000", AlertCondition.PRICE_ABOVE);
+
+        assertThat(matches(rebuilt, "65000.5")).isFalse();
+        assertThat(matches(rebuilt, "65001")).isTrue();
+    }
+
+}
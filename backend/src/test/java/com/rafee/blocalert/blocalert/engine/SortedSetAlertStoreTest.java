@@ -0,0 +1,168 @@
+package com.rafee.blocalert.blocalert.engine;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.rafee.blocalert.blocalert.DTO.internal.IndexedAlert;
+import com.rafee.blocalert.blocalert.DTO.request.AlertRequest;
+import com.rafee.blocalert.blocalert.config.AlertEngineConfig;
+import com.rafee.blocalert.blocalert.config.AppConfig;
+import com.rafee.blocalert.blocalert.entity.Alert;
+import com.rafee.blocalert.blocalert.entity.User;
+import com.rafee.blocalert.blocalert.entity.enums.AlertCondition;
+import com.rafee.blocalert.blocalert.repository.AlertRepository;
+import com.rafee.blocalert.blocalert.service.RedisService;
+import com.rafee.blocalert.blocalert.service.UserService;
+import com.rafee.blocalert.blocalert.service.impl.AlertServiceImpl;
+import com.rafee.blocalert.blocalert.utils.ScaledPrice;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * Alerts cached by {@link AlertServiceImpl} must come back out of a sorted set claim. Redis is stood in for by
+ * maps: the ADD script puts the member in its set, the CLAIM stand-in takes the triggered above / below members
+ * and reads and deletes their hash fields with the field prefix passed to the script, like the script does.
+ */
+class SortedSetAlertStoreTest {
+
+    private final Map<String, Map<String, byte[]>> hashes = new HashMap<>();
+    private final Map<String, Map<String, Double>> sortedSets = new HashMap<>();
+
+    private AlertMatchingEngine alertMatchingEngine;
+    private AlertServiceImpl alertService;
+
+    @BeforeEach
+    void setUp() {
+
+        RedisService redisService = mock(RedisService.class);
+
+        doAnswer(call -> hashes.computeIfAbsent(call.getArgument(0), k -> new HashMap<>())
+                .put(call.getArgument(1), call.getArgument(2)))
+                .when(redisService).hashSetBytes(anyString(), anyString(), any());
+
+        doAnswer(call -> {
+            List<String> keys = call.getArgument(1);
+            List<String> args = call.getArgument(2);
+            sortedSets.computeIfAbsent(keys.get(Integer.parseInt(args.get(1)) - 1), k -> new HashMap<>())
+                    .put(args.get(0), Double.parseDouble(args.get(2)));
+            return null;
+        }).when(redisService).scriptExecute(anyString(), anyList(), anyList());
+
+        when(redisService.scriptExecuteAllForBytes(anyString(), anyInt(), anyList()))
+                .thenAnswer(call -> claim(call.getArgument(1), call.getArgument(2)));
+
+        AlertEngineConfig alertEngineConfig = new AlertEngineConfig();
+        alertEngineConfig.setStorage(AlertEngineConfig.Storage.SORTED_SET);
+
+        alertMatchingEngine = new AlertMatchingEngine(redisService, new ObjectMapper(), new SimpleMeterRegistry(),
+                alertEngineConfig, new SortedSetAlertStore(redisService));
+
+        User user = new User();
+        user.setId(7L);
+
+        UserService userService = mock(UserService.class);
+        when(userService.getUser(7L)).thenReturn(user);
+
+        AlertRepository alertRepository = mock(AlertRepository.class);
+        when(alertRepository.save(any(Alert.class))).thenAnswer(call -> {
+            Alert alert = call.getArgument(0);
+            alert.setId(42L);
+            return alert;
+        });
+
+        AppConfig appConfig = new AppConfig();
+        appConfig.setFreeAlertLimit(5);
+
+        alertService = new AlertServiceImpl(alertRepository, userService, null, redisService, appConfig,
+                alertMatchingEngine, null, null, null);
+    }
+
+    private List<List<byte[]>> claim(int keyCount, List<List<String>> calls) {
+
+        List<List<byte[]>> results = new ArrayList<>();
+
+        for (List<String> call : calls) {
+
+            List<String> keys = call.subList(0, keyCount);
+            List<String> args = call.subList(keyCount, call.size());
+            double price = Double.parseDouble(args.get(0));
+
+            List<String> claimed = new ArrayList<>();
+            sortedSets.getOrDefault(keys.get(0), new HashMap<>()).entrySet()
+                    .removeIf(entry -> entry.getValue() <= price && claimed.add(entry.getKey()));
+            sortedSets.getOrDefault(keys.get(1), new HashMap<>()).entrySet()
+                    .removeIf(entry -> entry.getValue() > price && claimed.add(entry.getKey()));
+
+            Map<String, byte[]> hash = hashes.getOrDefault(keys.get(keyCount - 2), new HashMap<>());
+            List<byte[]> payloads = new ArrayList<>();
+            for (String id : claimed) {
+                byte[] payload = hash.remove(args.get(3) + id);
+                if (payload != null) payloads.add(payload);
+            }
+            results.add(payloads);
+        }
+        return results;
+    }
+
+    private static AlertRequest request(AlertCondition condition, String threshold) {
+
+        AlertRequest request = new AlertRequest();
+        request.setCryptoId("bitcoin");
+        request.setCondition(condition);
+        request.setThresholdValue(new BigDecimal(threshold));
+        request.setNotificationWebsocket(true);
+        request.setNotificationEmail(false);
+        request.setNotificationSms(true);
+        return request;
+    }
+
+    private List<IndexedAlert> match(String price) {
+
+        PriceInterval interval = PriceInterval.of(ScaledPrice.toScaled(new BigDecimal(price)));
+        return alertMatchingEngine.match(Map.of("bitcoin", interval)).getOrDefault("bitcoin", List.of());
+    }
+
+    @Test
+    void claimsTheCachedPayloadOfATriggeredAlert() {
+
+        alertService.addAlert(7L, request(AlertCondition.PRICE_ABOVE, "65000"));
+
+        List<IndexedAlert> claimed = match("65100");
+
+        assertThat(claimed).hasSize(1);
+        IndexedAlert alert = claimed.getFirst();
+        assertThat(alert.alertId()).isEqualTo(42L);
+        assertThat(alert.userId()).isEqualTo(7L);
+        assertThat(alert.alertCondition()).isEqualTo(AlertCondition.PRICE_ABOVE);
+        assertThat(alert.notificationWebsocket()).isTrue();
+        assertThat(alert.notificationSms()).isTrue();
+
+        assertThat(hashes.get("alerts:coin:bitcoin")).isEmpty();
+    }
+
+    @Test
+    void leavesAnAlertThatDidNotTrigger() {
+
+        alertService.addAlert(7L, request(AlertCondition.PRICE_BELOW, "60000"));
+
+        assertThat(match("65100")).isEmpty();
+        assertThat(hashes.get("alerts:coin:bitcoin")).containsOnlyKeys("alert:42");
+
+        assertThat(match("59000")).extracting(IndexedAlert::alertId).containsExactly(42L);
+    }
+
+}
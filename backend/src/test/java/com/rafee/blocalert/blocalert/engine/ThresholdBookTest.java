@@ -0,0 +1,120 @@
+package com.rafee.blocalert.blocalert.engine;
+
+import com.rafee.blocalert.blocalert.DTO.internal.IndexedAlert;
+import com.rafee.blocalert.blocalert.entity.enums.AlertCondition;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Random;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ThresholdBookTest {
+
+    private static IndexedAlert alert(long alertId, long threshold) {
+        return new IndexedAlert(alertId, 1L, threshold, 0, AlertCondition.PRICE_ABOVE, true, false, false, 0L);
+    }
+
+    private static List<IndexedAlert> slice(ThresholdBook book, long low, long high) {
+
+        List<IndexedAlert> out = new ArrayList<>();
+        book.collect(book.lowerBound(low), book.upperBound(high), out);
+        return out;
+    }
+
+    @Test
+    void boundsAndCountFollowTheKeys() {
+
+        ThresholdBook book = new ThresholdBook();
+        book.add(20, alert(1, 20));
+        book.add(10, alert(2, 10));
+        book.add(20, alert(3, 20));
+        book.add(30, alert(4, 30));
+
+        assertThat(book.size()).isEqualTo(4);
+        assertThat(book.lowerBound(20)).isEqualTo(1);
+        assertThat(book.upperBound(20)).isEqualTo(3);
+        assertThat(book.lowerBound(5)).isZero();
+        assertThat(book.upperBound(35)).isEqualTo(4);
+
+        assertThat(book.count(10, 20)).isEqualTo(3);
+        assertThat(book.count(11, 19)).isZero();
+        assertThat(book.count(30, 10)).isZero();
+
+        assertThat(slice(book, 20, 30)).extracting(IndexedAlert::alertId).containsExactly(1L, 3L, 4L);
+    }
+
+    @Test
+    void removeTakesOnlyTheMatchingAlertOfAKey() {
+
+        ThresholdBook book = new ThresholdBook();
+        book.add(20, alert(1, 20));
+        book.add(20, alert(2, 20));
+        book.add(40, alert(3, 40));
+
+        assertThat(book.remove(20, 2)).isTrue();
+        assertThat(book.remove(20, 2)).isFalse();
+        assertThat(book.remove(40, 1)).isFalse();
+
+        assertThat(book.size()).isEqualTo(2);
+        assertThat(slice(book, 0, 100)).extracting(IndexedAlert::alertId).containsExactly(1L, 3L);
+    }
+
+    @Test
+    void loadMatchesAddedAlerts() {
+
+        List<IndexedAlert> alerts = new ArrayList<>();
+        for (long id = 0; id < 50; id++) {
+            alerts.add(alert(id, (id * 37) % 11));
+        }
+
+        ThresholdBook loaded = new ThresholdBook();
+        loaded.load(alerts, IndexedAlert::threshold);
+
+        ThresholdBook added = new ThresholdBook();
+        alerts.forEach(alert -> added.add(alert.threshold(), alert));
+
+        assertThat(loaded.size()).isEqualTo(added.size());
+        for (long key = -1; key <= 11; key++) {
+            assertThat(loaded.lowerBound(key)).isEqualTo(added.lowerBound(key));
+            assertThat(loaded.upperBound(key)).isEqualTo(added.upperBound(key));
+            assertThat(slice(loaded, key, key)).containsExactlyInAnyOrderElementsOf(slice(added, key, key));
+        }
+    }
+
+    @Test
+    void randomChangesAgreeWithASortedList() {
+
+        Random random = new Random(42);
+        ThresholdBook book = new ThresholdBook();
+        List<IndexedAlert> expected = new ArrayList<>();
+
+        for (long id = 0; id < 2000; id++) {
+
+            if (!expected.isEmpty() && random.nextInt(3) == 0) {
+                IndexedAlert removed = expected.remove(random.nextInt(expected.size()));
+                assertThat(book.remove(removed.threshold(), removed.alertId())).isTrue();
+            } else {
+                IndexedAlert added = alert(id, random.nextInt(200));
+                book.add(added.threshold(), added);
+                expected.add(added);
+            }
+        }
+
+        expected.sort(Comparator.comparingLong(IndexedAlert::threshold));
+        assertThat(book.size()).isEqualTo(expected.size());
+
+        for (int i = 0; i < 100; i++) {
+
+            long low = random.nextInt(220) - 10;
+            long high = low + random.nextInt(60);
+            List<IndexedAlert> inRange = expected.stream().filter(a -> a.threshold() >= low && a.threshold() <= high).toList();
+
+            assertThat(book.count(low, high)).isEqualTo(inRange.size());
+            assertThat(slice(book, low, high)).containsExactlyInAnyOrderElementsOf(inRange);
+        }
+    }
+
+}
@@ -0,0 +1,116 @@
+package com.rafee.blocalert.blocalert.market;
+
+import com.rafee.blocalert.blocalert.DTO.internal.CryptoMarketLite;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class CryptoSearchIndexTest {
+
+    private SimpleMeterRegistry meterRegistry;
+    private CryptoSearchIndex searchIndex;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        searchIndex = new CryptoSearchIndex(meterRegistry);
+    }
+
+    private static CryptoMarketLite coin(String id, String symbol, String name, long marketCap) {
+        return new CryptoMarketLite(id, symbol, name, null, BigDecimal.ONE, marketCap, 0, 0, 0, 0, 0);
+    }
+
+    private static MarketView view(long version, CryptoMarketLite... coins) {
+        return new MarketView(version, 0L, List.of(coins), Map.of(), Map.of());
+    }
+
+    private static final List<CryptoMarketLite> COINS = List.of(
+            coin("bitcoin", "btc", "Bitcoin", 1000),
+            coin("lido-staked-ether", "steth", "Lido Staked Ether", 900),
+            coin("ethereum", "eth", "Ethereum", 800),
+            coin("wrapped-bitcoin", "wbtc", "Wrapped Bitcoin", 300),
+            coin("bitcoin-cash", "bch", "Bitcoin Cash", 50),
+            coin("ethena", "ena", "Ethena", 20),
+            coin("pokemon", "pkmn", "Pokémon", 5)
+    );
+
+    private List<String> search(MarketView view, String term, int limit) {
+        return searchIndex.search(view, term, limit).stream().map(CryptoMarketLite::id).toList();
+    }
+
+    private double builds(String type) {
+        return meterRegistry.counter("crypto.search.index.builds", "type", type).count();
+    }
+
+    @Test
+    void ranksExactSymbolThenPrefixThenOtherMatchesByMarketCap() {
+
+        MarketView view = view(1, COINS.toArray(new CryptoMarketLite[0]));
+
+        assertThat(search(view, "eth", 10)).containsExactly("ethereum", "lido-staked-ether", "ethena");
+        assertThat(search(view, "btc", 10)).containsExactly("bitcoin", "wrapped-bitcoin");
+        assertThat(search(view, "bit", 10)).containsExactly("bitcoin", "wrapped-bitcoin", "bitcoin-cash");
+    }
+
+    @Test
+    void longTermsAreCheckedAgainstTheirTrigramCandidates() {
+
+        MarketView view = view(1, COINS.toArray(new CryptoMarketLite[0]));
+
+        assertThat(search(view, "coin", 10)).containsExactly("bitcoin", "wrapped-bitcoin", "bitcoin-cash");
+        assertThat(search(view, "ereum", 10)).containsExactly("ethereum");
+        assertThat(search(view, "bitcoin c", 10)).containsExactly("bitcoin-cash");
+        assertThat(search(view, "coinx", 10)).isEmpty();
+    }
+
+    @Test
+    void ignoresCaseAndDiacritics() {
+
+        MarketView view = view(1, COINS.toArray(new CryptoMarketLite[0]));
+
+        assertThat(search(view, " POKEMON ", 10)).containsExactly("pokemon");
+        assertThat(search(view, "poké", 10)).containsExactly("pokemon");
+        assertThat(search(view, "BTC", 10)).containsExactly("bitcoin", "wrapped-bitcoin");
+    }
+
+    @Test
+    void appliesTheLimitAcrossTiers() {
+
+        MarketView view = view(1, COINS.toArray(new CryptoMarketLite[0]));
+
+        assertThat(search(view, "eth", 2)).containsExactly("ethereum", "lido-staked-ether");
+        assertThat(search(view, "eth", 0)).isEmpty();
+        assertThat(search(view, "  ", 10)).isEmpty();
+        assertThat(search(view, null, 10)).isEmpty();
+    }
+
+    @Test
+    void refreshesMarketDataWithoutRebuildingTheGrams() {
+
+        assertThat(search(view(1, coin("bitcoin", "btc", "Bitcoin", 1000), coin("wrapped-bitcoin", "wbtc", "Wrapped Bitcoin", 300)), "btc", 10))
+                .containsExactly("bitcoin", "wrapped-bitcoin");
+        assertThat(builds("full")).isEqualTo(1);
+
+        // same version is served from the current index
+        search(view(1, coin("bitcoin", "btc", "Bitcoin", 1000), coin("wrapped-bitcoin", "wbtc", "Wrapped Bitcoin", 300)), "btc", 10);
+        assertThat(builds("full") + builds("refresh")).isEqualTo(1);
+
+        // a new price tick only reorders by market cap
+        MarketView ticked = view(2, coin("bitcoin", "btc", "Bitcoin", 100), coin("wrapped-bitcoin", "wbtc", "Wrapped Bitcoin", 300));
+        assertThat(search(ticked, "bitcoin", 10)).containsExactly("wrapped-bitcoin", "bitcoin");
+        assertThat(searchIndex.search(ticked, "wbtc", 1).getFirst().market_cap()).isEqualTo(300L);
+        assertThat(builds("refresh")).isEqualTo(1);
+
+        // a renamed coin rebuilds the grams
+        MarketView renamed = view(3, coin("bitcoin", "btc", "Bitcoin", 100), coin("wrapped-bitcoin", "wbtc", "Wrapped BTC", 300));
+        assertThat(search(renamed, "bitcoin", 10)).containsExactly("bitcoin");
+        assertThat(builds("full")).isEqualTo(2);
+    }
+
+}
@@ -0,0 +1,45 @@
+package com.rafee.blocalert.blocalert.timeseries;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class PriceHistoryCoverageTest {
+
+    private static final long MINUTE = 60_000L;
+
+    private static List<PricePoint> everyMinute(long from, long to) {
+
+        List<PricePoint> points = new ArrayList<>();
+        for (long timestamp = from; timestamp <= to; timestamp += MINUTE) {
+            points.add(new PricePoint(timestamp, 1.0, 0, 0));
+        }
+        return points;
+    }
+
+    @Test
+    void coversSteadyHistory() {
+        assertThat(PriceHistoryStore.covers(everyMinute(0, 600 * MINUTE), 0, 600 * MINUTE, 10 * MINUTE)).isTrue();
+    }
+
+    @Test
+    void rejectsMissingEnds() {
+
+        assertThat(PriceHistoryStore.covers(List.of(), 0, 600 * MINUTE, 10 * MINUTE)).isFalse();
+        assertThat(PriceHistoryStore.covers(everyMinute(60 * MINUTE, 600 * MINUTE), 0, 600 * MINUTE, 10 * MINUTE)).isFalse();
+        assertThat(PriceHistoryStore.covers(everyMinute(0, 500 * MINUTE), 0, 600 * MINUTE, 10 * MINUTE)).isFalse();
+    }
+
+    @Test
+    void rejectsGapInsideTheRange() {
+
+        List<PricePoint> points = new ArrayList<>(everyMinute(0, 200 * MINUTE));
+        points.addAll(everyMinute(300 * MINUTE, 600 * MINUTE));
+
+        assertThat(PriceHistoryStore.covers(points, 0, 600 * MINUTE, 10 * MINUTE)).isFalse();
+    }
+
+}
@@ -0,0 +1,100 @@
+package com.rafee.blocalert.blocalert.timeseries;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class PriceSegmentTest {
+
+    private static final int CAPACITY = 64 * 1024;
+
+    @TempDir
+    Path directory;
+
+    private static List<PricePoint> randomWalk(long start, int count, long seed) {
+
+        SplittableRandom random = new SplittableRandom(seed);
+        List<PricePoint> points = new ArrayList<>();
+        long timestamp = start;
+        double price = 65000.12345678;
+        double marketCap = 1.28e12;
+
+        for (int i = 0; i < count; i++) {
+            // mostly steady ticks with some jitter, a few unchanged values and negative delta-of-deltas
+            timestamp += 60_000 + random.nextInt(-3_000, 3_000);
+            if (random.nextInt(4) != 0) price *= random.nextDouble(0.99, 1.01);
+            marketCap = random.nextInt(5) == 0 ? marketCap : marketCap * random.nextDouble(0.99, 1.01);
+            points.add(new PricePoint(timestamp, price, marketCap, random.nextInt(3) == 0 ? 0 : random.nextDouble(1e6, 1e10)));
+        }
+        return points;
+    }
+
+    @Test
+    void pointsRoundTrip() throws IOException {
+
+        Path file = directory.resolve("bitcoin").resolve("2026-01-01.seg");
+        List<PricePoint> points = randomWalk(1_767_225_600_000L, 500, 1);
+
+        PriceSegment segment = PriceSegment.open(file, CAPACITY);
+        points.forEach(point -> assertThat(segment.append(point)).isTrue());
+
+        assertThat(segment.points()).isEqualTo(points);
+
+        segment.flush();
+        assertThat(PriceSegment.read(file)).isEqualTo(points);
+    }
+
+    @Test
+    void reopenedSegmentContinuesTheChains() throws IOException {
+
+        Path file = directory.resolve("2026-01-01.seg");
+        List<PricePoint> points = randomWalk(1_767_225_600_000L, 300, 2);
+
+        PriceSegment first = PriceSegment.open(file, CAPACITY);
+        points.subList(0, 150).forEach(first::append);
+        first.flush();
+
+        PriceSegment reopened = PriceSegment.open(file, CAPACITY);
+        points.subList(150, 300).forEach(reopened::append);
+        reopened.flush();
+
+        assertThat(PriceSegment.read(file)).isEqualTo(points);
+    }
+
+    @Test
+    void uncountedPointIsDroppedOnReopen() throws IOException {
+
+        Path file = directory.resolve("2026-01-01.seg");
+        List<PricePoint> points = randomWalk(1_767_225_600_000L, 20, 3);
+
+        PriceSegment segment = PriceSegment.open(file, CAPACITY);
+        points.subList(0, 10).forEach(segment::append);
+        segment.flush();
+
+        // a crash between writing the end offset and the count leaves bytes of an uncounted point behind
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            ByteBuffer header = ByteBuffer.allocate(16);
+            channel.read(header, 0);
+            int end = header.getInt(8);
+            channel.write(ByteBuffer.wrap(new byte[]{(byte) 0xFE, 0x01, 0x7F, 0x33, 0x44, 0x55}), end);
+            channel.write(ByteBuffer.allocate(4).putInt(0, end + 6), 8);
+        }
+
+        PriceSegment reopened = PriceSegment.open(file, CAPACITY);
+        points.subList(10, 20).forEach(reopened::append);
+        reopened.flush();
+
+        assertThat(PriceSegment.read(file)).isEqualTo(points);
+    }
+
+}
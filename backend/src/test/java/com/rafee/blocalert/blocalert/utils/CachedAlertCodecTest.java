@@ -0,0 +1,79 @@
+package com.rafee.blocalert.blocalert.utils;
+
+import com.rafee.blocalert.blocalert.DTO.internal.IndexedAlert;
+import com.rafee.blocalert.blocalert.entity.enums.AlertCondition;
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class CachedAlertCodecTest {
+
+    @Test
+    void roundTripsEveryConditionAndNotificationFlag() {
+
+        for (AlertCondition condition : AlertCondition.values()) {
+            for (int flags = 0; flags < 8; flags++) {
+
+                IndexedAlert alert = new IndexedAlert(42L, 7L, 6_500_000_000_000L, 2, condition,
+                        (flags & 1) != 0, (flags & 2) != 0, (flags & 4) != 0, 1_760_000_000_000L);
+
+                byte[] encoded = CachedAlertCodec.encode(alert);
+
+                assertThat(encoded).hasSize(CachedAlertCodec.LENGTH);
+                assertThat(CachedAlertCodec.decode(encoded)).as("%s flags %d", condition, flags).isEqualTo(alert);
+            }
+        }
+    }
+
+    @Test
+    void roundTripsEveryThresholdScale() {
+
+        for (int scale = ScaledPrice.MIN_SCALE; scale <= ScaledPrice.SCALE; scale++) {
+
+            IndexedAlert alert = new IndexedAlert(1L, 2L, 3L, scale, AlertCondition.PRICE_EQUALS, true, false, true, 0L);
+
+            assertThat(CachedAlertCodec.decode(CachedAlertCodec.encode(alert)).thresholdScale()).isEqualTo(scale);
+        }
+    }
+
+    @Test
+    void roundTripsLongBoundaries() {
+
+        IndexedAlert alert = new IndexedAlert(Long.MAX_VALUE, Long.MIN_VALUE, Long.MAX_VALUE,
+                ScaledPrice.MIN_SCALE, AlertCondition.PRICE_BELOW, false, true, false, Long.MAX_VALUE);
+
+        assertThat(CachedAlertCodec.decode(CachedAlertCodec.encode(alert))).isEqualTo(alert);
+    }
+
+    @Test
+    void decodesVersion1WithoutActiveSince() {
+
+        IndexedAlert alert = new IndexedAlert(42L, 7L, 6_500_000_000_000L, -3, AlertCondition.PRICE_EQUALS, true, false, true, 123L);
+        byte[] version1 = Arrays.copyOf(CachedAlertCodec.encode(alert), 28);
+        version1[0] = 1;
+
+        assertThat(CachedAlertCodec.isEncoded(version1)).isTrue();
+        assertThat(CachedAlertCodec.decode(version1)).isEqualTo(new IndexedAlert(42L, 7L, 6_500_000_000_000L, -3,
+                AlertCondition.PRICE_EQUALS, true, false, true, 0L));
+    }
+
+    @Test
+    void rejectsOtherFormats() {
+
+        byte[] encoded = CachedAlertCodec.encode(new IndexedAlert(1L, 2L, 3L, 0, AlertCondition.PRICE_ABOVE, true, true, true, 0L));
+        byte[] otherVersion = encoded.clone();
+        otherVersion[0] = CachedAlertCodec.VERSION + 1;
+
+        assertThat(CachedAlertCodec.isEncoded(encoded)).isTrue();
+        assertThat(CachedAlertCodec.isEncoded(otherVersion)).isFalse();
+        assertThat(CachedAlertCodec.isEncoded(new byte[CachedAlertCodec.LENGTH - 1])).isFalse();
+        assertThat(CachedAlertCodec.isEncoded(null)).isFalse();
+        assertThat(CachedAlertCodec.isEncoded("{\"alertId\":1}".getBytes())).isFalse();
+
+        assertThatThrownBy(() -> CachedAlertCodec.decode(otherVersion)).isInstanceOf(IllegalArgumentException.class);
+    }
+
+}